@@ -84,8 +84,12 @@ public static class CubicChunksMod {
         }
         
         public void setBlock(int x, int y, int z, BlockType type) {
+            setBlock(x, y, z, type.getId());
+        }
+        
+        public void setBlock(int x, int y, int z, int typeId) {
             if (x >= 0 && x < CUBIC_CHUNK_SIZE && y >= 0 && y < CUBIC_CHUNK_SIZE && z >= 0 && z < CUBIC_CHUNK_SIZE) {
-                blocks[x][y][z].setType(type);
+                blocks[x][y][z].setTypeId(typeId);
                 needsRebuild = true;
                 
                 // Mark neighboring chunks for rebuild
@@ -113,7 +117,7 @@ public static class CubicChunksMod {
                 for (int y = 0; y < CUBIC_CHUNK_SIZE; y++) {
                     for (int z = 0; z < CUBIC_CHUNK_SIZE; z++) {
                         Block block = blocks[x][y][z];
-                        if (block.getType() != BlockType.AIR) {
+                        if (block.getTypeId() != BlockRegistry.AIR_ID) {
                             addBlockToMesh(block, x, y, z);
                         }
                     }
@@ -124,7 +128,7 @@ public static class CubicChunksMod {
         }
         
         private void addBlockToMesh(Block block, int x, int y, int z) {
-            for (BlockFace face : BlockFace.values()) {
+            for (BlockFace face : BlockFace.ALL) {
                 if (shouldRenderFace(block, face, x, y, z)) {
                     addFaceToMesh(block, face, x, y, z);
                 }
@@ -153,11 +157,11 @@ public static class CubicChunksMod {
             int worldZ = chunkZ * CUBIC_CHUNK_SIZE + z;
             
             float[][] vertices = getFaceVertices(face, worldX, worldY, worldZ);
-            int[] textureCoords = block.getTextureCoords(face);
+            float layer = block.getTextureTile(face);
             
             for (float[] vertex : vertices) {
                 meshData.add(new float[]{vertex[0], vertex[1], vertex[2]});
-                meshData.add(new float[]{textureCoords[0], textureCoords[1]});
+                meshData.add(new float[]{layer, face.ordinal()});
             }
         }
         
@@ -215,6 +219,10 @@ public static class CubicChunksMod {
     }
     
     public void setBlock(int worldX, int worldY, int worldZ, BlockType type) {
+        setBlock(worldX, worldY, worldZ, type.getId());
+    }
+    
+    public void setBlock(int worldX, int worldY, int worldZ, int typeId) {
         int chunkX = worldX >> 4;
         int chunkY = worldY >> 4;
         int chunkZ = worldZ >> 4;
@@ -223,6 +231,6 @@ public static class CubicChunksMod {
         int localZ = worldZ & 15;
         
         CubicChunk chunk = getCubicChunk(chunkX, chunkY, chunkZ);
-        chunk.setBlock(localX, localY, localZ, type);
+        chunk.setBlock(localX, localY, localZ, typeId);
     }
 }
@@ -3,11 +3,22 @@ package com.minecraftclone;
 import org.lwjgl.*;
 import org.lwjgl.glfw.*;
 import org.lwjgl.opengl.*;
+import org.joml.Matrix4f;
 import org.joml.Vector3f;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.zip.*;
 
 import static org.lwjgl.glfw.Callbacks.*;
 import static org.lwjgl.glfw.GLFW.*;
@@ -23,78 +34,222 @@ public class MinecraftClone {
     // ENUMS
     
     public enum BlockType {
-        AIR(0, false, false),
-        GRASS(1, true, true),
-        DIRT(2, true, true),
-        STONE(3, true, true),
-        SAND(4, true, true),
-        WATER(5, false, false),
-        WOOD(6, true, true),
-        LEAVES(7, true, false),
-        BEDROCK(8, true, true);
+        AIR(0, false, false, tile(0, 0), tile(0, 0), tile(0, 0)),
+        GRASS(1, true, true, tile(0, 0), tile(2, 0), tile(3, 0)),
+        DIRT(2, true, true, tile(2, 0), tile(2, 0), tile(2, 0)),
+        STONE(3, true, true, tile(1, 0), tile(1, 0), tile(1, 0)),
+        SAND(4, true, true, tile(2, 1), tile(2, 1), tile(2, 1)),
+        WATER(5, false, false, tile(0, 1), tile(0, 1), tile(0, 1)),
+        WOOD(6, true, true, tile(4, 0), tile(4, 0), tile(4, 0)),
+        LEAVES(7, true, false, tile(4, 1), tile(4, 1), tile(4, 1)),
+        BEDROCK(8, true, true, tile(1, 1), tile(1, 1), tile(1, 1));
+        
+        private static final BlockType[] BY_ID = new BlockType[BlockRegistry.MAX_BLOCK_TYPES];
+        
+        static {
+            for (BlockType type : values()) {
+                BY_ID[type.id] = type;
+            }
+        }
         
         private final int id;
         private final boolean solid;
         private final boolean opaque;
+        private final int topTile, bottomTile, sideTile;
         
-        BlockType(int id, boolean solid, boolean opaque) {
+        BlockType(int id, boolean solid, boolean opaque, int topTile, int bottomTile, int sideTile) {
             this.id = id;
             this.solid = solid;
             this.opaque = opaque;
+            this.topTile = topTile;
+            this.bottomTile = bottomTile;
+            this.sideTile = sideTile;
+        }
+        
+        private static int tile(int u, int v) {
+            return v * BlockRegistry.ATLAS_TILES_PER_ROW + u;
         }
         
         public int getId() { return id; }
         public boolean isSolid() { return solid; }
         public boolean isOpaque() { return opaque; }
+        public int getTopTile() { return topTile; }
+        public int getBottomTile() { return bottomTile; }
+        public int getSideTile() { return sideTile; }
         
         public static BlockType fromId(int id) {
-            for (BlockType type : values()) {
-                if (type.id == id) return type;
-            }
-            return AIR;
+            BlockType type = id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+            return type != null ? type : AIR;
         }
     }
     
     public enum BlockFace {
-        TOP, BOTTOM, NORTH, SOUTH, EAST, WEST
+        TOP, BOTTOM, NORTH, SOUTH, EAST, WEST;
+        
+        // values() clones on every call; meshing loops use this instead
+        public static final BlockFace[] ALL = values();
+    }
+    
+    // BLOCK REGISTRY
+    
+    /**
+     * Id-indexed block properties. Built-in BlockType constants are registered on class load;
+     * further types can be registered at runtime or loaded from a definitions file without
+     * touching the enum. Lookups are plain array reads so meshing and physics never allocate.
+     */
+    public static final class BlockRegistry {
+        public static final int MAX_BLOCK_TYPES = 256;
+        public static final int ATLAS_TILES_PER_ROW = 16;
+        public static final int AIR_ID = 0;
+        
+        private static final int FACES = 6;
+        
+        private static final BlockType[] builtins = new BlockType[MAX_BLOCK_TYPES];
+        private static final String[] names = new String[MAX_BLOCK_TYPES];
+        private static final boolean[] solid = new boolean[MAX_BLOCK_TYPES];
+        private static final boolean[] opaque = new boolean[MAX_BLOCK_TYPES];
+        private static final int[] faceTiles = new int[MAX_BLOCK_TYPES * FACES];
+        private static final int[][] faceTexCoords = new int[MAX_BLOCK_TYPES * FACES][];
+        private static volatile int size;
+        
+        static {
+            for (BlockType type : BlockType.values()) {
+                register(type.getId(), type.name(), type.isSolid(), type.isOpaque(),
+                    type.getTopTile(), type.getBottomTile(), type.getSideTile());
+                builtins[type.getId()] = type;
+            }
+        }
+        
+        private BlockRegistry() {}
+        
+        public static synchronized void register(int id, String name, boolean isSolid, boolean isOpaque,
+                                                 int topTile, int bottomTile, int sideTile) {
+            if (id < 0 || id >= MAX_BLOCK_TYPES) {
+                throw new IllegalArgumentException("Block id out of range: " + id);
+            }
+            if (names[id] != null) {
+                throw new IllegalArgumentException("Block id " + id + " already registered as " + names[id]);
+            }
+            
+            solid[id] = isSolid;
+            opaque[id] = isOpaque;
+            for (BlockFace face : BlockFace.ALL) {
+                int tile = switch (face) {
+                    case TOP -> topTile;
+                    case BOTTOM -> bottomTile;
+                    default -> sideTile;
+                };
+                faceTiles[id * FACES + face.ordinal()] = tile;
+                faceTexCoords[id * FACES + face.ordinal()] = new int[]{tile % ATLAS_TILES_PER_ROW, tile / ATLAS_TILES_PER_ROW};
+            }
+            names[id] = name;
+            size = Math.max(size, id + 1);
+        }
+        
+        public static synchronized int register(String name, boolean isSolid, boolean isOpaque,
+                                                int topTile, int bottomTile, int sideTile) {
+            for (int id = 0; id < MAX_BLOCK_TYPES; id++) {
+                if (names[id] == null) {
+                    register(id, name, isSolid, isOpaque, topTile, bottomTile, sideTile);
+                    return id;
+                }
+            }
+            throw new IllegalStateException("Block registry full (" + MAX_BLOCK_TYPES + " types)");
+        }
+        
+        /*
+          Loads block definitions, one per line:
+            name solid opaque topU,topV bottomU,bottomV sideU,sideV
+          Blank lines and lines starting with # are ignored.
+         */
+        public static void loadDefinitions(Path file) throws IOException {
+            for (String line : Files.readAllLines(file)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                
+                String[] parts = line.split("\\s+");
+                if (parts.length != 6) {
+                    throw new IOException("Malformed block definition: " + line);
+                }
+                register(parts[0], Boolean.parseBoolean(parts[1]), Boolean.parseBoolean(parts[2]),
+                    parseTile(parts[3]), parseTile(parts[4]), parseTile(parts[5]));
+            }
+        }
+        
+        private static int parseTile(String uv) throws IOException {
+            String[] parts = uv.split(",");
+            if (parts.length != 2) {
+                throw new IOException("Malformed texture tile: " + uv);
+            }
+            return Integer.parseInt(parts[1]) * ATLAS_TILES_PER_ROW + Integer.parseInt(parts[0]);
+        }
+        
+        public static boolean isSolid(int id) { return solid[id]; }
+        public static boolean isOpaque(int id) { return opaque[id]; }
+        public static boolean isRegistered(int id) { return id >= 0 && id < MAX_BLOCK_TYPES && names[id] != null; }
+        public static String getName(int id) { return names[id]; }
+        public static int size() { return size; }
+        
+        public static int getFaceTile(int id, BlockFace face) {
+            return faceTiles[id * FACES + face.ordinal()];
+        }
+        
+        // Shared per-face {u, v} arrays; callers must not modify them
+        public static int[] getFaceTexCoords(int id, BlockFace face) {
+            return faceTexCoords[id * FACES + face.ordinal()];
+        }
+        
+        /*
+          Compatibility workaround for enum-based callers, not a real type lookup. Types
+          registered at runtime have no BlockType constant, so they come back as a stand-in
+          with the same collision and culling behaviour: STONE when solid and opaque, LEAVES
+          when solid and see-through, AIR otherwise. The stand-in's name, tiles and id are
+          wrong for the runtime type, and a runtime block compares equal to STONE or LEAVES;
+          new code should use the id with getName, isSolid, isOpaque and getFaceTile instead.
+         */
+        public static BlockType typeOf(int id) {
+            BlockType type = id >= 0 && id < MAX_BLOCK_TYPES ? builtins[id] : null;
+            if (type != null) return type;
+            if (!isRegistered(id) || !solid[id]) return BlockType.AIR;
+            return opaque[id] ? BlockType.STONE : BlockType.LEAVES;
+        }
     }
     
     // BLOCK CLASS
     
     public static class Block {
-        private BlockType type;
+        private int typeId;
         private int x, y, z;
         
         public Block(BlockType type, int x, int y, int z) {
-            this.type = type;
+            this(type.getId(), x, y, z);
+        }
+        
+        public Block(int typeId, int x, int y, int z) {
+            this.typeId = typeId;
             this.x = x;
             this.y = y;
             this.z = z;
         }
         
-        public BlockType getType() { return type; }
-        public void setType(BlockType type) { this.type = type; }
+        public BlockType getType() { return BlockRegistry.typeOf(typeId); }
+        public void setType(BlockType type) { this.typeId = type.getId(); }
+        public int getTypeId() { return typeId; }
+        public void setTypeId(int typeId) { this.typeId = typeId; }
         
         public int getX() { return x; }
         public int getY() { return y; }
         public int getZ() { return z; }
         
-        public boolean isSolid() { return type.isSolid(); }
-        public boolean isOpaque() { return type.isOpaque(); }
+        public boolean isSolid() { return BlockRegistry.isSolid(typeId); }
+        public boolean isOpaque() { return BlockRegistry.isOpaque(typeId); }
+        
+        public int getTextureTile(BlockFace face) {
+            return BlockRegistry.getFaceTile(typeId, face);
+        }
         
         public int[] getTextureCoords(BlockFace face) {
-            return switch (type) {
-                case GRASS -> face == BlockFace.TOP ? new int[]{0, 0} : 
-                             face == BlockFace.BOTTOM ? new int[]{2, 0} : new int[]{3, 0};
-                case DIRT -> new int[]{2, 0};
-                case STONE -> new int[]{1, 0};
-                case SAND -> new int[]{2, 1};
-                case WATER -> new int[]{0, 1};
-                case WOOD -> new int[]{4, 0};
-                case LEAVES -> new int[]{4, 1};
-                case BEDROCK -> new int[]{1, 1};
-                default -> new int[]{0, 0};
-            };
+            return BlockRegistry.getFaceTexCoords(typeId, face);
         }
     }
     
@@ -103,18 +258,38 @@ public class MinecraftClone {
     public static class Chunk {
         public static final int CHUNK_SIZE = 16;
         public static final int CHUNK_HEIGHT = 256;
+        public static final int SECTION_SIZE = 16;
+        public static final int SECTIONS = CHUNK_HEIGHT / SECTION_SIZE;
+        public static final int ALL_SECTIONS = (1 << SECTIONS) - 1;
         
         private int chunkX, chunkZ;
         private Block[][][] blocks;
-        private boolean needsRebuild;
-        private List<float[]> meshData;
+        
+        // One bit per section awaiting a remesh, plus when the oldest unmeshed edit in it happened
+        private final AtomicInteger dirtySections = new AtomicInteger(ALL_SECTIONS);
+        private final AtomicLongArray pendingEditNanos = new AtomicLongArray(SECTIONS);
+        private volatile ChunkMesh mesh = ChunkMesh.empty();
+        
+        public static final int MAX_LOD_LEVEL = 3; // 8x8x8 merges
+        // Built on the chunk builder pool and read by the render thread; each slot is published
+        // as an immutable (version, vertices) pair so the reader sees a complete mesh
+        private final AtomicReferenceArray<LodMesh> lodMeshes = new AtomicReferenceArray<>(MAX_LOD_LEVEL + 1);
+        private final AtomicInteger lodPending = new AtomicInteger();
+        
+        private static final class LodMesh {
+            final int version;
+            final List<float[]> vertices;
+            
+            LodMesh(int version, List<float[]> vertices) {
+                this.version = version;
+                this.vertices = vertices;
+            }
+        }
         
         public Chunk(int chunkX, int chunkZ) {
             this.chunkX = chunkX;
             this.chunkZ = chunkZ;
             this.blocks = new Block[CHUNK_SIZE][CHUNK_HEIGHT][CHUNK_SIZE];
-            this.needsRebuild = true;
-            this.meshData = new ArrayList<>();
             generateTerrain();
         }
         
@@ -158,36 +333,166 @@ public class MinecraftClone {
         public void setBlock(int x, int y, int z, BlockType type) {
             if (x >= 0 && x < CHUNK_SIZE && y >= 0 && y < CHUNK_HEIGHT && z >= 0 && z < CHUNK_SIZE) {
                 blocks[x][y][z].setType(type);
-                needsRebuild = true;
                 
-                if (x == 0) World.getInstance().markChunkForRebuild(chunkX - 1, chunkZ);
-                if (x == CHUNK_SIZE - 1) World.getInstance().markChunkForRebuild(chunkX + 1, chunkZ);
-                if (z == 0) World.getInstance().markChunkForRebuild(chunkX, chunkZ - 1);
-                if (z == CHUNK_SIZE - 1) World.getInstance().markChunkForRebuild(chunkX, chunkZ + 1);
+                int section = y / SECTION_SIZE;
+                pendingEditNanos.compareAndSet(section, 0, System.nanoTime());
+                int sections = 1 << section;
+                if (y % SECTION_SIZE == 0 && section > 0) sections |= 1 << (section - 1);
+                if (y % SECTION_SIZE == SECTION_SIZE - 1 && section < SECTIONS - 1) sections |= 1 << (section + 1);
+                markSectionsDirty(sections);
+                
+                if (x == 0) World.getInstance().markSectionsForRebuild(chunkX - 1, chunkZ, 1 << section);
+                if (x == CHUNK_SIZE - 1) World.getInstance().markSectionsForRebuild(chunkX + 1, chunkZ, 1 << section);
+                if (z == 0) World.getInstance().markSectionsForRebuild(chunkX, chunkZ - 1, 1 << section);
+                if (z == CHUNK_SIZE - 1) World.getInstance().markSectionsForRebuild(chunkX, chunkZ + 1, 1 << section);
             }
         }
         
-        public void rebuildMesh() {
-            meshData.clear();
+        /**
+         * Immutable result of a mesh rebuild: per-section vertex lists, the mesh version each
+         * section was last rebuilt in, its face-to-face connectivity (see CaveCuller) and the
+         * time of the oldest edit that rebuild picked up (0 if none).
+         */
+        public static class ChunkMesh {
+            private final List<float[]>[] sectionVertices;
+            private final int[] sectionVersions;
+            private final long[] sectionVisibility;
+            private final long[] sectionEditNanos;
+            private final int version;
+            private volatile List<float[]> vertices;
+            
+            public ChunkMesh(List<float[]>[] sectionVertices, int[] sectionVersions, long[] sectionVisibility,
+                             long[] sectionEditNanos, int version) {
+                this.sectionVertices = sectionVertices;
+                this.sectionVersions = sectionVersions;
+                this.sectionVisibility = sectionVisibility;
+                this.sectionEditNanos = sectionEditNanos;
+                this.version = version;
+            }
             
-            for (int x = 0; x < CHUNK_SIZE; x++) {
-                for (int y = 0; y < CHUNK_HEIGHT; y++) {
-                    for (int z = 0; z < CHUNK_SIZE; z++) {
-                        Block block = blocks[x][y][z];
-                        if (block.getType() != BlockType.AIR) {
-                            addBlockToMesh(block, x, y, z);
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            static ChunkMesh empty() {
+                List<float[]>[] sections = new List[SECTIONS];
+                Arrays.fill(sections, Collections.emptyList());
+                return new ChunkMesh(sections, new int[SECTIONS], null, new long[SECTIONS], 0);
+            }
+            
+            public int getVersion() { return version; }
+            public List<float[]> getSectionVertices(int section) { return sectionVertices[section]; }
+            public int getSectionVersion(int section) { return sectionVersions[section]; }
+            public long getSectionEditNanos(int section) { return sectionEditNanos[section]; }
+            
+            // Sections of a chunk that was never meshed are treated as fully see-through
+            public long getSectionVisibility(int section) {
+                return sectionVisibility != null ? sectionVisibility[section] : CaveCuller.ALL_CONNECTED;
+            }
+            
+            // All sections concatenated; built on first use
+            public List<float[]> getVertices() {
+                List<float[]> all = vertices;
+                if (all == null) {
+                    all = new ArrayList<>();
+                    for (List<float[]> section : sectionVertices) {
+                        all.addAll(section);
+                    }
+                    vertices = all;
+                }
+                return all;
+            }
+        }
+        
+        /**
+         * Remeshes only the sections marked dirty and splices them into a copy of the current
+         * mesh, which is then swapped in so the renderer never sees a half-built mesh.
+         */
+        public void rebuildMesh() {
+            int dirty = dirtySections.getAndSet(0);
+            if (dirty == 0) return;
+            
+            ChunkMesh previous = mesh;
+            int version = previous.getVersion() + 1;
+            List<float[]>[] sectionVertices = previous.sectionVertices.clone();
+            int[] sectionVersions = previous.sectionVersions.clone();
+            long[] sectionVisibility = previous.sectionVisibility != null ? previous.sectionVisibility.clone() : new long[SECTIONS];
+            long[] sectionEditNanos = new long[SECTIONS];
+            
+            for (int section = 0; section < SECTIONS; section++) {
+                if ((dirty & (1 << section)) == 0) continue;
+                
+                sectionEditNanos[section] = pendingEditNanos.getAndSet(section, 0);
+                List<float[]> vertices = new ArrayList<>();
+                for (int x = 0; x < CHUNK_SIZE; x++) {
+                    for (int y = section * SECTION_SIZE; y < (section + 1) * SECTION_SIZE; y++) {
+                        for (int z = 0; z < CHUNK_SIZE; z++) {
+                            Block block = blocks[x][y][z];
+                            if (block.getTypeId() != BlockRegistry.AIR_ID) {
+                                addBlockToMesh(vertices, block, x, y, z);
+                            }
                         }
                     }
                 }
+                sectionVertices[section] = vertices;
+                sectionVersions[section] = version;
+                sectionVisibility[section] = computeSectionVisibility(section);
+            }
+            
+            mesh = new ChunkMesh(sectionVertices, sectionVersions, sectionVisibility, sectionEditNanos, version);
+        }
+        
+        /*
+          Flood-fills the non-opaque cells of one 16^3 section and records, for every pair of
+          section faces, whether some connected pocket of cells touches both.
+         */
+        private long computeSectionVisibility(int section) {
+            final int n = SECTION_SIZE;
+            boolean[] visited = new boolean[n * n * n];
+            int[] queue = new int[n * n * n];
+            int baseY = section * n;
+            long visibility = 0;
+            boolean anyOpaque = false;
+            
+            for (int i = 0; i < visited.length; i++) {
+                int x = i / (n * n), y = (i / n) % n, z = i % n;
+                if (BlockRegistry.isOpaque(blocks[x][baseY + y][z].getTypeId())) {
+                    visited[i] = true;
+                    anyOpaque = true;
+                }
             }
+            if (!anyOpaque) return CaveCuller.ALL_CONNECTED;
             
-            needsRebuild = false;
+            for (int start = 0; start < visited.length; start++) {
+                if (visited[start]) continue;
+                
+                int head = 0, tail = 0, faces = 0;
+                visited[start] = true;
+                queue[tail++] = start;
+                while (head < tail) {
+                    int i = queue[head++];
+                    int x = i / (n * n), y = (i / n) % n, z = i % n;
+                    
+                    if (x == 0) faces |= 1 << BlockFace.WEST.ordinal();
+                    if (x == n - 1) faces |= 1 << BlockFace.EAST.ordinal();
+                    if (y == 0) faces |= 1 << BlockFace.BOTTOM.ordinal();
+                    if (y == n - 1) faces |= 1 << BlockFace.TOP.ordinal();
+                    if (z == 0) faces |= 1 << BlockFace.NORTH.ordinal();
+                    if (z == n - 1) faces |= 1 << BlockFace.SOUTH.ordinal();
+                    
+                    if (x > 0 && !visited[i - n * n]) { visited[i - n * n] = true; queue[tail++] = i - n * n; }
+                    if (x < n - 1 && !visited[i + n * n]) { visited[i + n * n] = true; queue[tail++] = i + n * n; }
+                    if (y > 0 && !visited[i - n]) { visited[i - n] = true; queue[tail++] = i - n; }
+                    if (y < n - 1 && !visited[i + n]) { visited[i + n] = true; queue[tail++] = i + n; }
+                    if (z > 0 && !visited[i - 1]) { visited[i - 1] = true; queue[tail++] = i - 1; }
+                    if (z < n - 1 && !visited[i + 1]) { visited[i + 1] = true; queue[tail++] = i + 1; }
+                }
+                visibility |= CaveCuller.connectAll(faces);
+            }
+            return visibility;
         }
         
-        private void addBlockToMesh(Block block, int x, int y, int z) {
-            for (BlockFace face : BlockFace.values()) {
+        private void addBlockToMesh(List<float[]> mesh, Block block, int x, int y, int z) {
+            for (BlockFace face : BlockFace.ALL) {
                 if (shouldRenderFace(block, face, x, y, z)) {
-                    addFaceToMesh(block, face, x, y, z);
+                    addFaceToMesh(mesh, block, face, x, y, z);
                 }
             }
         }
@@ -208,50 +513,141 @@ public class MinecraftClone {
             return adjacent == null || !adjacent.isOpaque();
         }
         
-        private void addFaceToMesh(Block block, BlockFace face, int x, int y, int z) {
-            int worldX = chunkX * CHUNK_SIZE + x;
-            int worldZ = chunkZ * CHUNK_SIZE + z;
-            
-            float[][] vertices = getFaceVertices(face, worldX, y, worldZ);
-            int[] textureCoords = block.getTextureCoords(face);
+        // Vertices are chunk-local; the renderer supplies the chunk origin per draw
+        private void addFaceToMesh(List<float[]> mesh, Block block, BlockFace face, int x, int y, int z) {
+            float[][] vertices = getFaceVertices(face, x, y, z, 1);
+            float layer = block.getTextureTile(face);
             
             for (float[] vertex : vertices) {
-                meshData.add(new float[]{vertex[0], vertex[1], vertex[2]});
-                meshData.add(new float[]{textureCoords[0], textureCoords[1]});
+                mesh.add(new float[]{vertex[0], vertex[1], vertex[2]});
+                mesh.add(new float[]{layer, face.ordinal()});
             }
         }
         
-        private float[][] getFaceVertices(BlockFace face, float x, float y, float z) {
+        private float[][] getFaceVertices(BlockFace face, float x, float y, float z, float size) {
             return switch (face) {
                 case TOP -> new float[][]{
-                    {x, y + 1, z}, {x + 1, y + 1, z}, {x + 1, y + 1, z + 1},
-                    {x, y + 1, z}, {x + 1, y + 1, z + 1}, {x, y + 1, z + 1}
+                    {x, y + size, z}, {x + size, y + size, z}, {x + size, y + size, z + size},
+                    {x, y + size, z}, {x + size, y + size, z + size}, {x, y + size, z + size}
                 };
                 case BOTTOM -> new float[][]{
-                    {x, y, z}, {x + 1, y, z + 1}, {x + 1, y, z},
-                    {x, y, z}, {x, y, z + 1}, {x + 1, y, z + 1}
+                    {x, y, z}, {x + size, y, z + size}, {x + size, y, z},
+                    {x, y, z}, {x, y, z + size}, {x + size, y, z + size}
                 };
                 case NORTH -> new float[][]{
-                    {x, y, z}, {x, y + 1, z}, {x + 1, y + 1, z},
-                    {x, y, z}, {x + 1, y + 1, z}, {x + 1, y, z}
+                    {x, y, z}, {x, y + size, z}, {x + size, y + size, z},
+                    {x, y, z}, {x + size, y + size, z}, {x + size, y, z}
                 };
                 case SOUTH -> new float[][]{
-                    {x, y, z + 1}, {x + 1, y + 1, z + 1}, {x, y + 1, z + 1},
-                    {x, y, z + 1}, {x + 1, y, z + 1}, {x + 1, y + 1, z + 1}
+                    {x, y, z + size}, {x + size, y + size, z + size}, {x, y + size, z + size},
+                    {x, y, z + size}, {x + size, y, z + size}, {x + size, y + size, z + size}
                 };
                 case EAST -> new float[][]{
-                    {x + 1, y, z}, {x + 1, y + 1, z}, {x + 1, y + 1, z + 1},
-                    {x + 1, y, z}, {x + 1, y + 1, z + 1}, {x + 1, y, z + 1}
+                    {x + size, y, z}, {x + size, y + size, z}, {x + size, y + size, z + size},
+                    {x + size, y, z}, {x + size, y + size, z + size}, {x + size, y, z + size}
                 };
                 case WEST -> new float[][]{
-                    {x, y, z}, {x, y + 1, z + 1}, {x, y + 1, z},
-                    {x, y, z}, {x, y, z + 1}, {x, y + 1, z + 1}
+                    {x, y, z}, {x, y + size, z + size}, {x, y + size, z},
+                    {x, y, z}, {x, y, z + size}, {x, y + size, z + size}
                 };
             };
         }
         
-        public List<float[]> getMeshData() { return meshData; }
-        public boolean needsRebuild() { return needsRebuild; }
+        // LEVEL OF DETAIL
+        
+        /**
+         * Builds the mesh for LOD level (1..MAX_LOD_LEVEL), merging (1 << level)^3 blocks into
+         * one voxel. A merged voxel is filled when at least half its blocks are non-air and takes
+         * the most common of their types. The result is cached against the current mesh version.
+         */
+        public void rebuildLodMesh(int level) {
+            int version = mesh.getVersion();
+            int scale = 1 << level;
+            int sizeXZ = CHUNK_SIZE / scale;
+            int sizeY = CHUNK_HEIGHT / scale;
+            int[] coarse = new int[sizeXZ * sizeY * sizeXZ];
+            int[] counts = new int[BlockRegistry.MAX_BLOCK_TYPES];
+            
+            for (int cx = 0; cx < sizeXZ; cx++) {
+                for (int cy = 0; cy < sizeY; cy++) {
+                    for (int cz = 0; cz < sizeXZ; cz++) {
+                        int filled = 0, best = BlockRegistry.AIR_ID;
+                        for (int x = cx * scale; x < (cx + 1) * scale; x++) {
+                            for (int y = cy * scale; y < (cy + 1) * scale; y++) {
+                                for (int z = cz * scale; z < (cz + 1) * scale; z++) {
+                                    int id = blocks[x][y][z].getTypeId();
+                                    if (id == BlockRegistry.AIR_ID) continue;
+                                    filled++;
+                                    if (++counts[id] > counts[best]) best = id;
+                                }
+                            }
+                        }
+                        for (int x = cx * scale; x < (cx + 1) * scale; x++) {
+                            for (int y = cy * scale; y < (cy + 1) * scale; y++) {
+                                for (int z = cz * scale; z < (cz + 1) * scale; z++) {
+                                    counts[blocks[x][y][z].getTypeId()] = 0;
+                                }
+                            }
+                        }
+                        coarse[(cx * sizeY + cy) * sizeXZ + cz] = filled * 2 >= scale * scale * scale ? best : BlockRegistry.AIR_ID;
+                    }
+                }
+            }
+            
+            List<float[]> lodMesh = new ArrayList<>();
+            for (int cx = 0; cx < sizeXZ; cx++) {
+                for (int cy = 0; cy < sizeY; cy++) {
+                    for (int cz = 0; cz < sizeXZ; cz++) {
+                        int id = coarse[(cx * sizeY + cy) * sizeXZ + cz];
+                        if (id == BlockRegistry.AIR_ID) continue;
+                        
+                        for (BlockFace face : BlockFace.ALL) {
+                            int ax = cx, ay = cy, az = cz;
+                            switch (face) {
+                                case TOP -> ay++;
+                                case BOTTOM -> ay--;
+                                case NORTH -> az--;
+                                case SOUTH -> az++;
+                                case EAST -> ax++;
+                                case WEST -> ax--;
+                            }
+                            boolean inside = ax >= 0 && ax < sizeXZ && ay >= 0 && ay < sizeY && az >= 0 && az < sizeXZ;
+                            if (inside && BlockRegistry.isOpaque(coarse[(ax * sizeY + ay) * sizeXZ + az])) continue;
+                            
+                            float layer = BlockRegistry.getFaceTile(id, face);
+                            for (float[] vertex : getFaceVertices(face, cx * scale, cy * scale, cz * scale, scale)) {
+                                lodMesh.add(vertex);
+                                lodMesh.add(new float[]{layer, face.ordinal()});
+                            }
+                        }
+                    }
+                }
+            }
+            
+            lodMeshes.set(level, new LodMesh(version, lodMesh));
+            lodPending.getAndUpdate(bits -> bits & ~(1 << level));
+        }
+        
+        // Cached LOD mesh for the current blocks, or null if it has not been built yet
+        public List<float[]> getLodMesh(int level) {
+            ChunkMesh current = mesh;
+            if (level == 0) return current.getVertices();
+            LodMesh cached = lodMeshes.get(level);
+            return cached != null && cached.version == current.getVersion() ? cached.vertices : null;
+        }
+        
+        // Returns true if the caller should schedule the build, false if one is already queued
+        public boolean requestLodBuild(int level) {
+            int bit = 1 << level;
+            return (lodPending.getAndUpdate(bits -> bits | bit) & bit) == 0;
+        }
+        
+        public ChunkMesh getMesh() { return mesh; }
+        public List<float[]> getMeshData() { return mesh.getVertices(); }
+        public int getMeshVersion() { return mesh.getVersion(); }
+        public boolean needsRebuild() { return dirtySections.get() != 0; }
+        public void markDirty() { dirtySections.set(ALL_SECTIONS); }
+        public void markSectionsDirty(int sectionMask) { dirtySections.getAndUpdate(bits -> bits | sectionMask); }
         public int getChunkX() { return chunkX; }
         public int getChunkZ() { return chunkZ; }
     }
@@ -263,6 +659,30 @@ public class MinecraftClone {
         private Map<String, Chunk> chunks;
         private Set<String> chunksToRebuild;
         private ExecutorService chunkBuilder;
+        private volatile Thread builderThread;
+        private final EntityManager entities = new EntityManager();
+        // Bumped after every load or unload so caches of the chunk set know to refresh
+        private final AtomicInteger chunkGeneration = new AtomicInteger();
+        // Last chunk looked up. Player physics and ray marching ask for the same chunk over and
+        // over, and a hit here skips building the String key; any load or unload invalidates it
+        private volatile ChunkMemo lastChunk;
+        
+        private static final class ChunkMemo {
+            final Chunk chunk;
+            final int generation;
+            
+            ChunkMemo(Chunk chunk, int generation) {
+                this.chunk = chunk;
+                this.generation = generation;
+            }
+        }
+        
+        private final List<BlockBreakListener> breakListeners = new CopyOnWriteArrayList<>();
+        
+        @FunctionalInterface
+        public interface BlockBreakListener {
+            void onBlockBroken(int worldX, int worldY, int worldZ, int brokenTypeId);
+        }
         
         private World() {
             chunks = new ConcurrentHashMap<>();
@@ -279,8 +699,42 @@ public class MinecraftClone {
         }
         
         public Chunk getChunk(int chunkX, int chunkZ) {
+            // Read before the map, so an unload racing this lookup leaves the memo stale, never wrong
+            int generation = chunkGeneration.get();
+            ChunkMemo memo = lastChunk;
+            if (memo != null && memo.generation == generation
+                    && memo.chunk.getChunkX() == chunkX && memo.chunk.getChunkZ() == chunkZ) {
+                return memo.chunk;
+            }
+            
             String key = chunkX + "," + chunkZ;
-            return chunks.computeIfAbsent(key, k -> new Chunk(chunkX, chunkZ));
+            Chunk chunk = chunks.get(key);
+            if (chunk != null) {
+                lastChunk = new ChunkMemo(chunk, generation);
+                return chunk;
+            }
+            chunk = chunks.computeIfAbsent(key, k -> new Chunk(chunkX, chunkZ));
+            // Bumped after the insert, so a reader that sees the new generation sees the chunk
+            chunkGeneration.incrementAndGet();
+            return chunk;
+        }
+        
+        public Chunk unloadChunk(int chunkX, int chunkZ) {
+            Chunk chunk = chunks.remove(chunkX + "," + chunkZ);
+            if (chunk != null) {
+                chunksToRebuild.remove(chunkX + "," + chunkZ);
+                chunkGeneration.incrementAndGet();
+            }
+            return chunk;
+        }
+        
+        public int getChunkGeneration() {
+            return chunkGeneration.get();
+        }
+        
+        // Unlike getChunk this never generates terrain; null if the chunk is not loaded
+        public Chunk getLoadedChunk(int chunkX, int chunkZ) {
+            return chunks.get(chunkX + "," + chunkZ);
         }
         
         public Block getBlock(int worldX, int worldY, int worldZ) {
@@ -312,17 +766,192 @@ public class MinecraftClone {
             markChunkForRebuild(chunkX, chunkZ);
         }
         
+        // Sets the block to air and tells listeners (e.g. item drops) what was there
+        public void breakBlock(int worldX, int worldY, int worldZ) {
+            Block block = getBlock(worldX, worldY, worldZ);
+            if (block == null || block.getTypeId() == BlockRegistry.AIR_ID) {
+                return;
+            }
+            
+            int brokenTypeId = block.getTypeId();
+            setBlock(worldX, worldY, worldZ, BlockType.AIR);
+            for (BlockBreakListener listener : breakListeners) {
+                listener.onBlockBroken(worldX, worldY, worldZ, brokenTypeId);
+            }
+        }
+        
+        public void addBlockBreakListener(BlockBreakListener listener) {
+            breakListeners.add(listener);
+        }
+        
         public void markChunkForRebuild(int chunkX, int chunkZ) {
             chunksToRebuild.add(chunkX + "," + chunkZ);
+            LockSupport.unpark(builderThread);
         }
         
+        // Border edits only touch the neighbour's matching sections; unloaded neighbours are left alone
+        public void markSectionsForRebuild(int chunkX, int chunkZ, int sectionMask) {
+            Chunk neighbor = chunks.get(chunkX + "," + chunkZ);
+            if (neighbor != null) {
+                neighbor.markSectionsDirty(sectionMask);
+                markChunkForRebuild(chunkX, chunkZ);
+            }
+        }
+
+        // BULK REGION EDITS
+
+        public CompletableFuture<Integer> fillRegion(int x1, int y1, int z1, int x2, int y2, int z2, BlockType type) {
+            return fillRegion(x1, y1, z1, x2, y2, z2, type.getId());
+        }
+
+        public CompletableFuture<Integer> fillRegion(int x1, int y1, int z1, int x2, int y2, int z2, int typeId) {
+            requireRegistered(typeId);
+            return editRegion(x1, y1, z1, x2, y2, z2, (x, y, z, current) -> current == typeId ? NO_CHANGE : typeId);
+        }
+
+        public CompletableFuture<Integer> replaceRegion(int x1, int y1, int z1, int x2, int y2, int z2,
+                                                        BlockType from, BlockType to) {
+            return replaceRegion(x1, y1, z1, x2, y2, z2, from.getId(), to.getId());
+        }
+
+        public CompletableFuture<Integer> replaceRegion(int x1, int y1, int z1, int x2, int y2, int z2,
+                                                        int fromId, int toId) {
+            requireRegistered(fromId);
+            requireRegistered(toId);
+            return editRegion(x1, y1, z1, x2, y2, z2,
+                (x, y, z, current) -> current == fromId && fromId != toId ? toId : NO_CHANGE);
+        }
+
+        // Checked before any work is queued, so a bad id never reaches the chunks
+        private static void requireRegistered(int typeId) {
+            if (!BlockRegistry.isRegistered(typeId)) {
+                throw new IllegalArgumentException("Unregistered block id " + typeId);
+            }
+        }
+
+        public CompletableFuture<RegionClipboard> copyRegion(int x1, int y1, int z1, int x2, int y2, int z2) {
+            return CompletableFuture.supplyAsync(() -> {
+                int minX = Math.min(x1, x2), maxX = Math.max(x1, x2);
+                int minY = Math.max(0, Math.min(y1, y2)), maxY = Math.min(Chunk.CHUNK_HEIGHT - 1, Math.max(y1, y2));
+                int minZ = Math.min(z1, z2), maxZ = Math.max(z1, z2);
+                RegionClipboard clipboard = new RegionClipboard(maxX - minX + 1, Math.max(0, maxY - minY + 1), maxZ - minZ + 1);
+
+                for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+                    for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                        Chunk chunk = getChunk(cx, cz);
+                        int fromX = Math.max(minX, cx << 4), toX = Math.min(maxX, (cx << 4) + 15);
+                        int fromZ = Math.max(minZ, cz << 4), toZ = Math.min(maxZ, (cz << 4) + 15);
+
+                        for (int x = fromX; x <= toX; x++) {
+                            for (int y = minY; y <= maxY; y++) {
+                                for (int z = fromZ; z <= toZ; z++) {
+                                    clipboard.setId(x - minX, y - minY, z - minZ, chunk.getBlock(x & 15, y, z & 15).getTypeId());
+                                }
+                            }
+                        }
+                    }
+                }
+                return clipboard;
+            }, chunkBuilder);
+        }
+
+        public CompletableFuture<Integer> pasteRegion(RegionClipboard clipboard, int originX, int originY, int originZ,
+                                                      boolean skipAir) {
+            // editRegion orders its corners, so an empty clipboard would invert into a 2-wide box
+            if (clipboard.getWidth() <= 0 || clipboard.getHeight() <= 0 || clipboard.getDepth() <= 0) {
+                return CompletableFuture.completedFuture(0);
+            }
+            return editRegion(originX, originY, originZ,
+                originX + clipboard.getWidth() - 1, originY + clipboard.getHeight() - 1, originZ + clipboard.getDepth() - 1,
+                (x, y, z, current) -> {
+                    int typeId = clipboard.getId(x - originX, y - originY, z - originZ);
+                    if (typeId == current || (skipAir && typeId == BlockRegistry.AIR_ID)) return NO_CHANGE;
+                    return typeId;
+                });
+        }
+
+        /**
+         * Applies an edit straight to chunk storage on the builder pool. Each touched chunk
+         * (and each loaded neighbour whose border faces changed) is queued for rebuild once,
+         * instead of once per block as with setBlock, and only the sections the region spans
+         * (plus the ones just above and below it) are remeshed.
+         */
+        private CompletableFuture<Integer> editRegion(int x1, int y1, int z1, int x2, int y2, int z2, CellEdit edit) {
+            return CompletableFuture.supplyAsync(() -> {
+                int minX = Math.min(x1, x2), maxX = Math.max(x1, x2);
+                int minY = Math.max(0, Math.min(y1, y2)), maxY = Math.min(Chunk.CHUNK_HEIGHT - 1, Math.max(y1, y2));
+                int minZ = Math.min(z1, z2), maxZ = Math.max(z1, z2);
+                if (minY > maxY) return 0;
+                int minSection = Math.max(0, (minY - 1) / Chunk.SECTION_SIZE);
+                int maxSection = Math.min(Chunk.SECTIONS - 1, (maxY + 1) / Chunk.SECTION_SIZE);
+                int sections = (Chunk.ALL_SECTIONS >>> (Chunk.SECTIONS - 1 - maxSection + minSection)) << minSection;
+                Set<String> dirty = new LinkedHashSet<>();
+                int changed = 0;
+
+                for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+                    for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                        Chunk chunk = getChunk(cx, cz);
+                        int fromX = Math.max(minX, cx << 4), toX = Math.min(maxX, (cx << 4) + 15);
+                        int fromZ = Math.max(minZ, cz << 4), toZ = Math.min(maxZ, (cz << 4) + 15);
+                        int chunkChanged = 0;
+
+                        for (int x = fromX; x <= toX; x++) {
+                            for (int y = minY; y <= maxY; y++) {
+                                for (int z = fromZ; z <= toZ; z++) {
+                                    Block block = chunk.getBlock(x & 15, y, z & 15);
+                                    int typeId = edit.apply(x, y, z, block.getTypeId());
+                                    if (typeId != NO_CHANGE) {
+                                        block.setTypeId(typeId);
+                                        chunkChanged++;
+                                    }
+                                }
+                            }
+                        }
+
+                        if (chunkChanged > 0) {
+                            chunk.markSectionsDirty(sections);
+                            dirty.add(cx + "," + cz);
+                            if ((fromX & 15) == 0) markLoadedNeighborDirty(cx - 1, cz, sections, dirty);
+                            if ((toX & 15) == 15) markLoadedNeighborDirty(cx + 1, cz, sections, dirty);
+                            if ((fromZ & 15) == 0) markLoadedNeighborDirty(cx, cz - 1, sections, dirty);
+                            if ((toZ & 15) == 15) markLoadedNeighborDirty(cx, cz + 1, sections, dirty);
+                            changed += chunkChanged;
+                        }
+                    }
+                }
+
+                chunksToRebuild.addAll(dirty);
+                LockSupport.unpark(builderThread);
+                return changed;
+            }, chunkBuilder);
+        }
+
+        private void markLoadedNeighborDirty(int chunkX, int chunkZ, int sectionMask, Set<String> dirty) {
+            String key = chunkX + "," + chunkZ;
+            Chunk neighbor = chunks.get(key);
+            if (neighbor != null) {
+                neighbor.markSectionsDirty(sectionMask);
+                dirty.add(key);
+            }
+        }
+
+        private static final int NO_CHANGE = -1;
+
+        @FunctionalInterface
+        private interface CellEdit {
+            /** Returns the new type id for the cell, or NO_CHANGE to leave it untouched. */
+            int apply(int worldX, int worldY, int worldZ, int currentId);
+        }
+
+        // Drains every queued chunk, then parks until markChunkForRebuild wakes it again
         private void startChunkBuilder() {
-            Thread builderThread = new Thread(() -> {
+            builderThread = new Thread(() -> {
                 while (true) {
                     try {
-                        if (!chunksToRebuild.isEmpty()) {
-                            String key = chunksToRebuild.iterator().next();
-                            chunksToRebuild.remove(key);
+                        Iterator<String> pending = chunksToRebuild.iterator();
+                        while (pending.hasNext()) {
+                            String key = pending.next();
+                            pending.remove();
                             
                             String[] parts = key.split(",");
                             int chunkX = Integer.parseInt(parts[0]);
@@ -333,7 +962,9 @@ public class MinecraftClone {
                                 chunk.rebuildMesh();
                             }
                         }
-                        Thread.sleep(16);
+                        if (chunksToRebuild.isEmpty()) {
+                            LockSupport.parkNanos(50_000_000L);
+                        }
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -344,16 +975,55 @@ public class MinecraftClone {
         }
         
         public void update() {
-            // World update logic
+            entities.tick(this);
+        }
+        
+        public EntityManager getEntities() {
+            return entities;
+        }
+        
+        public void requestLodMesh(Chunk chunk, int level) {
+            if (chunk.requestLodBuild(level)) {
+                chunkBuilder.execute(() -> chunk.rebuildLodMesh(level));
+            }
         }
         
         public void cleanup() {
             chunkBuilder.shutdown();
+            entities.cleanup();
         }
         
+        // Read-only: loads and unloads go through getChunk/unloadChunk so the generation stays right
         public Map<String, Chunk> getChunks() {
-            return chunks;
+            return Collections.unmodifiableMap(chunks);
+        }
+    }
+    
+    // REGION CLIPBOARD
+    
+    public static class RegionClipboard {
+        private final int width, height, depth;
+        private final byte[] typeIds;
+        
+        public RegionClipboard(int width, int height, int depth) {
+            this.width = width;
+            this.height = height;
+            this.depth = depth;
+            this.typeIds = new byte[width * height * depth];
+        }
+        
+        private int index(int x, int y, int z) {
+            return (x * height + y) * depth + z;
         }
+        
+        public int getId(int x, int y, int z) { return typeIds[index(x, y, z)] & 0xFF; }
+        public void setId(int x, int y, int z, int typeId) { typeIds[index(x, y, z)] = (byte) typeId; }
+        public BlockType get(int x, int y, int z) { return BlockRegistry.typeOf(getId(x, y, z)); }
+        public void set(int x, int y, int z, BlockType type) { setId(x, y, z, type.getId()); }
+        
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public int getDepth() { return depth; }
     }
     
     // RAYCAST HIT
@@ -392,6 +1062,12 @@ public class MinecraftClone {
         private final float EYE_HEIGHT = 1.7f;
         private final float REACH_DISTANCE = 5.0f;
         
+        // Scratch vectors reused every tick/frame instead of allocating
+        private final Vector3f moveDir = new Vector3f();
+        private final Vector3f eyePosition = new Vector3f();
+        private final Vector3f lookDirection = new Vector3f();
+        private final Vector3f rayPoint = new Vector3f();
+        
         public Player(World world) {
             position = new Vector3f(0, 70, 0);
             rotation = new Vector3f();
@@ -415,7 +1091,7 @@ public class MinecraftClone {
         }
         
         private void handleKeyboardInput(InputHandler input) {
-            Vector3f moveDir = new Vector3f();
+            moveDir.zero();
             
             if (input.isKeyPressed(GLFW_KEY_W)) {
                 moveDir.z -= 1;
@@ -494,29 +1170,30 @@ public class MinecraftClone {
         
         public RaycastHit getRaycastHit() {
             Vector3f direction = getLookDirection();
-            Vector3f start = new Vector3f(position).add(0, EYE_HEIGHT, 0);
+            Vector3f start = getEyePosition();
             
             for (float t = 0; t < REACH_DISTANCE; t += 0.1f) {
-                Vector3f point = new Vector3f(start).add(direction.mul(t));
+                rayPoint.set(start).fma(t, direction);
                 
-                int blockX = (int) Math.floor(point.x);
-                int blockY = (int) Math.floor(point.y);
-                int blockZ = (int) Math.floor(point.z);
+                int blockX = (int) Math.floor(rayPoint.x);
+                int blockY = (int) Math.floor(rayPoint.y);
+                int blockZ = (int) Math.floor(rayPoint.z);
                 
                 Block block = World.getInstance().getBlock(blockX, blockY, blockZ);
                 if (block != null && block.isSolid()) {
-                    return new RaycastHit(block, blockX, blockY, blockZ, point);
+                    return new RaycastHit(block, blockX, blockY, blockZ, new Vector3f(rayPoint));
                 }
             }
             
             return null;
         }
         
+        // The returned vectors are reused by the player; copy them to keep a value past the next call
         public Vector3f getLookDirection() {
             float yaw = (float) Math.toRadians(rotation.y);
             float pitch = (float) Math.toRadians(rotation.x);
             
-            return new Vector3f(
+            return lookDirection.set(
                 (float) (-Math.sin(yaw) * Math.cos(pitch)),
                 (float) Math.sin(pitch),
                 (float) (-Math.cos(yaw) * Math.cos(pitch))
@@ -525,93 +1202,595 @@ public class MinecraftClone {
         
         public Vector3f getPosition() { return position; }
         public Vector3f getRotation() { return rotation; }
-        public Vector3f getEyePosition() { return new Vector3f(position).add(0, EYE_HEIGHT, 0); }
+        public Vector3f getEyePosition() { return eyePosition.set(position).add(0, EYE_HEIGHT, 0); }
         
         public int getSelectedBlock() {
             return 3; // Stone
         }
     }
     
-    // INPUT HANDLER
+    // PACKED COORDINATE KEYS
     
-    public static class InputHandler {
-        private boolean[] keys;
-        private boolean[] mouseButtons;
-        private double mouseX, mouseY;
-        private double lastMouseX, lastMouseY;
-        private double mouseDX, mouseDY;
-        private boolean mouseLocked = false;
-        
-        private GLFWKeyCallback keyCallback;
-        private GLFWMouseButtonCallback mouseButtonCallback;
-        private GLFWCursorPosCallback cursorPosCallback;
+    /**
+     * Open-addressed long -> int table (linear probing, backward-shift removal), shared by the
+     * renderer's chunk lookup, cave culling, the entity spatial hash and ContainMod, so lookups
+     * by packed coordinates never box a key. A slot counts as occupied only while its stamp
+     * matches the table's, which makes clear() O(1) for tables rebuilt every frame or tick.
+     * Not thread-safe.
+     */
+    public static final class LongIntTable {
+        private final int missing;
+        private long[] keys = new long[64];
+        private int[] values = new int[64];
+        private int[] stamps = new int[64];
+        private int stamp = 1;
+        private int size;
+        
+        // missing is what lookups of absent keys return, so it should never be stored as a value
+        public LongIntTable(int missing) {
+            this.missing = missing;
+        }
+        
+        // Chunk column key: chunk x in the high half, z in the low half
+        public static long columnKey(int chunkX, int chunkZ) {
+            return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        }
+        
+        // Packs a block or section position into one long: 26 bits each for x and z, 12 for y
+        public static long packPosition(int x, int y, int z) {
+            return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (y & 0xFFF);
+        }
+        
+        public int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key); stamps[slot] == stamp; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+            }
+            return missing;
+        }
         
-        public InputHandler() {
-            keys = new boolean[GLFW_KEY_LAST + 1];
-            mouseButtons = new boolean[GLFW_MOUSE_BUTTON_LAST + 1];
-            Arrays.fill(keys, false);
-            Arrays.fill(mouseButtons, false);
+        public boolean containsKey(long key) {
+            return get(key) != missing;
         }
         
-        public void init(long windowHandle) {
-            keyCallback = glfwSetKeyCallback(windowHandle, (window, key, scancode, action, mods) -> {
-                if (key >= 0 && key < keys.length) {
-                    keys[key] = action != GLFW_RELEASE;
-                }
-                
-                if (key == GLFW_KEY_ESCAPE && action == GLFW_PRESS) {
-                    mouseLocked = !mouseLocked;
-                    glfwSetInputMode(window, GLFW_CURSOR, 
-                        mouseLocked ? GLFW_CURSOR_DISABLED : GLFW_CURSOR_NORMAL);
+        // Returns the value previously stored under key, or missing
+        public int put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = slot(key);
+            while (stamps[slot] == stamp) {
+                if (keys[slot] == key) {
+                    int previous = values[slot];
+                    values[slot] = value;
+                    return previous;
                 }
-            });
-            
-            mouseButtonCallback = glfwSetMouseButtonCallback(windowHandle, (window, button, action, mods) -> {
-                if (button >= 0 && button < mouseButtons.length) {
-                    mouseButtons[button] = action != GLFW_RELEASE;
+                slot = (slot + 1) & mask;
+            }
+            stamps[slot] = stamp;
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+            return missing;
+        }
+        
+        // Returns the removed value, or missing
+        public int remove(long key) {
+            int mask = keys.length - 1;
+            int slot = slot(key);
+            while (stamps[slot] == stamp && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (stamps[slot] != stamp) return missing;
+            
+            int removed = values[slot];
+            // Shift later entries of the probe run back so no lookup stops at the hole
+            int hole = slot;
+            for (int next = (hole + 1) & mask; stamps[next] == stamp; next = (next + 1) & mask) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
                 }
-            });
-            
-            cursorPosCallback = glfwSetCursorPosCallback(windowHandle, (window, xpos, ypos) -> {
-                mouseX = xpos;
-                mouseY = ypos;
-            });
+            }
+            stamps[hole] = 0;
+            size--;
+            return removed;
         }
         
-        public void update() {
-            mouseDX = mouseX - lastMouseX;
-            mouseDY = mouseY - lastMouseY;
-            lastMouseX = mouseX;
-            lastMouseY = mouseY;
+        public void clear() {
+            if (++stamp == 0) {
+                // Stamp wrapped: stale slots could look live again, so wipe them once
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            size = 0;
         }
         
-        public boolean isKeyPressed(int keyCode) {
-            return keyCode >= 0 && keyCode < keys.length && keys[keyCode];
+        public void forEachValue(java.util.function.IntConsumer action) {
+            for (int i = 0; i < keys.length; i++) {
+                if (stamps[i] == stamp) action.accept(values[i]);
+            }
         }
         
-        public boolean isMouseButtonPressed(int button) {
-            return button >= 0 && button < mouseButtons.length && mouseButtons[button];
+        // The action must not add or remove keys
+        public void forEachKey(java.util.function.LongConsumer action) {
+            for (int i = 0; i < keys.length; i++) {
+                if (stamps[i] == stamp) action.accept(keys[i]);
+            }
         }
         
-        public double getMouseX() { return mouseX; }
-        public double getMouseY() { return mouseY; }
-        public double getMouseDX() { return mouseDX; }
-        public double getMouseDY() { return mouseDY; }
-        public boolean isMouseLocked() { return mouseLocked; }
+        public int size() { return size; }
+        
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            int[] oldStamps = stamps;
+            int oldStamp = stamp;
+            keys = new long[capacity];
+            values = new int[capacity];
+            stamps = new int[capacity];
+            stamp = 1;
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldStamps[i] == oldStamp) put(oldKeys[i], oldValues[i]);
+            }
+        }
         
-        public void cleanup() {
-            if (keyCallback != null) keyCallback.free();
-            if (mouseButtonCallback != null) mouseButtonCallback.free();
-            if (cursorPosCallback != null) cursorPosCallback.free();
+        private int slot(long key) {
+            return (int) (((key ^ (key >>> 32)) * 0x9E3779B97F4A7C15L) >>> 32) & (keys.length - 1);
         }
     }
     
-    // WINDOW CLASS
+    // ENTITY SYSTEM
     
-    public static class Window {
-        private long windowHandle;
-        private String title;
-        private int width, height;
+    public enum EntityKind {
+        MOB(0.3f, 0.8f),
+        ITEM(0.3f, 0.8f),
+        PROJECTILE(0.1f, 0.99f);
+        
+        private final float gravity; // velocity lost per tick while airborne
+        private final float drag;    // horizontal velocity kept per tick
+        
+        EntityKind(float gravity, float drag) {
+            this.gravity = gravity;
+            this.drag = drag;
+        }
+        
+        public float getGravity() { return gravity; }
+        public float getDrag() { return drag; }
+    }
+    
+    /**
+     * All non-player entities, stored structure-of-arrays so a tick walks flat primitive
+     * arrays. Entities are addressed by stable ids; their array index changes when others
+     * are removed (swap-remove). An id is a reusable slot in its low bits plus that slot's
+     * generation above it, so an id kept after its entity was removed is reported dead
+     * instead of pointing at whatever reused the slot. After every tick entities are bucketed
+     * by chunk column so range and collision queries only look at nearby chunks.
+     */
+    public static class EntityManager {
+        public static final int NO_ENTITY = -1;
+        private static final int SLOT_BITS = 20;  // up to ~1M live entities
+        private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+        private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1; // ids stay non-negative
+        private static final float TICK_STEP = 0.05f; // same integration step as Player
+        private static final int MIN_PARTITION = 512;
+        private static final EntityKind[] KINDS = EntityKind.values();
+        
+        // Per-entity state, indexed 0..count-1
+        private float[] posX, posY, posZ;
+        private float[] velX, velY, velZ;
+        private float[] halfWidth, height; // AABB around the feet position
+        private byte[] kind;
+        private boolean[] onGround;
+        private int[] data; // kind-specific payload, e.g. item type and stack size
+        private int[] indexToId;
+        private int count;
+        
+        // Per id slot: current array index (or NO_ENTITY) and generation
+        private int[] slotToIndex = new int[1024];
+        private int[] slotGeneration = new int[1024];
+        private int[] freeSlots = new int[64];
+        private int freeSlotCount;
+        private int nextSlot;
+        private int[] pendingRemovals = new int[64]; // ids queued by remove(), applied after the tick
+        private int pendingRemovalCount;
+        
+        // Spatial hash: chunk column -> head of an entity chain threaded through bucketNext
+        private final LongIntTable buckets = new LongIntTable(NO_ENTITY);
+        private int[] bucketNext;
+        
+        private final ExecutorService tickPool;
+        private final int partitions;
+        private long lastTickNanos;
+        
+        @FunctionalInterface
+        public interface EntityVisitor {
+            void visit(int entityId);
+        }
+        
+        public EntityManager() {
+            this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        
+        public EntityManager(int threads) {
+            partitions = threads;
+            tickPool = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "entity-tick");
+                thread.setDaemon(true);
+                return thread;
+            });
+            allocate(1024);
+            Arrays.fill(slotToIndex, NO_ENTITY);
+        }
+        
+        private void allocate(int capacity) {
+            posX = grow(posX, capacity); posY = grow(posY, capacity); posZ = grow(posZ, capacity);
+            velX = grow(velX, capacity); velY = grow(velY, capacity); velZ = grow(velZ, capacity);
+            halfWidth = grow(halfWidth, capacity); height = grow(height, capacity);
+            kind = kind == null ? new byte[capacity] : Arrays.copyOf(kind, capacity);
+            onGround = onGround == null ? new boolean[capacity] : Arrays.copyOf(onGround, capacity);
+            data = data == null ? new int[capacity] : Arrays.copyOf(data, capacity);
+            indexToId = indexToId == null ? new int[capacity] : Arrays.copyOf(indexToId, capacity);
+            bucketNext = bucketNext == null ? new int[capacity] : Arrays.copyOf(bucketNext, capacity);
+        }
+        
+        private static float[] grow(float[] array, int capacity) {
+            return array == null ? new float[capacity] : Arrays.copyOf(array, capacity);
+        }
+        
+        public int spawn(EntityKind entityKind, float x, float y, float z, float width, float entityHeight) {
+            if (count == posX.length) {
+                allocate(count * 2);
+            }
+            int slot;
+            if (freeSlotCount > 0) {
+                slot = freeSlots[--freeSlotCount];
+            } else if (nextSlot <= SLOT_MASK) {
+                slot = nextSlot++;
+            } else {
+                throw new IllegalStateException("Entity limit reached (" + (SLOT_MASK + 1) + ")");
+            }
+            if (slot >= slotToIndex.length) {
+                int oldLength = slotToIndex.length;
+                slotToIndex = Arrays.copyOf(slotToIndex, Math.max(slot + 1, oldLength * 2));
+                slotGeneration = Arrays.copyOf(slotGeneration, slotToIndex.length);
+                Arrays.fill(slotToIndex, oldLength, slotToIndex.length, NO_ENTITY);
+            }
+            int id = slotGeneration[slot] << SLOT_BITS | slot;
+            
+            int index = count++;
+            posX[index] = x; posY[index] = y; posZ[index] = z;
+            velX[index] = 0; velY[index] = 0; velZ[index] = 0;
+            halfWidth[index] = width / 2; height[index] = entityHeight;
+            kind[index] = (byte) entityKind.ordinal();
+            onGround[index] = false;
+            data[index] = 0;
+            indexToId[index] = id;
+            slotToIndex[slot] = index;
+            
+            // Visible to queries straight away, not only after the next tick
+            bucketNext[index] = buckets.put(LongIntTable.columnKey((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4), index);
+            return id;
+        }
+        
+        // Takes effect at the end of the next tick, so indices stay put while queries run
+        public void remove(int id) {
+            if (isAlive(id)) {
+                if (pendingRemovalCount == pendingRemovals.length) {
+                    pendingRemovals = Arrays.copyOf(pendingRemovals, pendingRemovalCount * 2);
+                }
+                pendingRemovals[pendingRemovalCount++] = id;
+            }
+        }
+        
+        private void applyRemovals() {
+            for (int i = 0; i < pendingRemovalCount; i++) {
+                int id = pendingRemovals[i];
+                int index = indexOf(id);
+                if (index == NO_ENTITY) continue; // removed twice in one tick
+                
+                int last = --count;
+                if (index != last) {
+                    posX[index] = posX[last]; posY[index] = posY[last]; posZ[index] = posZ[last];
+                    velX[index] = velX[last]; velY[index] = velY[last]; velZ[index] = velZ[last];
+                    halfWidth[index] = halfWidth[last]; height[index] = height[last];
+                    kind[index] = kind[last];
+                    onGround[index] = onGround[last];
+                    data[index] = data[last];
+                    indexToId[index] = indexToId[last];
+                    slotToIndex[indexToId[index] & SLOT_MASK] = index;
+                }
+                int slot = id & SLOT_MASK;
+                slotToIndex[slot] = NO_ENTITY;
+                // Retire this id; after GENERATION_MASK + 1 reuses of one slot the ids repeat
+                slotGeneration[slot] = (slotGeneration[slot] + 1) & GENERATION_MASK;
+                if (freeSlotCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+                }
+                freeSlots[freeSlotCount++] = slot;
+            }
+            pendingRemovalCount = 0;
+        }
+        
+        /**
+         * Moves every entity one tick. The arrays are split into contiguous partitions that
+         * integrate in parallel; each only writes its own range and reads world blocks, which
+         * are not modified during the tick. Removals and the spatial hash are then applied on
+         * the calling thread.
+         */
+        public void tick(World world) {
+            long start = System.nanoTime();
+            int parts = Math.min(partitions, Math.max(1, count / MIN_PARTITION));
+            if (parts == 1) {
+                integrate(world, 0, count);
+            } else {
+                List<Callable<Void>> tasks = new ArrayList<>(parts);
+                for (int p = 0; p < parts; p++) {
+                    int from = (int) ((long) count * p / parts);
+                    int to = (int) ((long) count * (p + 1) / parts);
+                    tasks.add(() -> {
+                        integrate(world, from, to);
+                        return null;
+                    });
+                }
+                try {
+                    for (Future<Void> result : tickPool.invokeAll(tasks)) {
+                        result.get();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    System.err.println("Entity tick failed: " + e.getCause());
+                }
+            }
+            
+            applyRemovals();
+            rebuildBuckets();
+            lastTickNanos = System.nanoTime() - start;
+        }
+        
+        private void integrate(World world, int from, int to) {
+            Chunk cachedChunk = null;
+            int cachedX = Integer.MIN_VALUE, cachedZ = Integer.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                EntityKind entityKind = KINDS[kind[i]];
+                if (!onGround[i]) {
+                    velY[i] -= entityKind.getGravity();
+                }
+                posX[i] += velX[i] * TICK_STEP;
+                posY[i] += velY[i] * TICK_STEP;
+                posZ[i] += velZ[i] * TICK_STEP;
+                velX[i] *= entityKind.getDrag();
+                velZ[i] *= entityKind.getDrag();
+                
+                int blockX = (int) Math.floor(posX[i]);
+                int blockY = (int) Math.floor(posY[i] - 0.01f);
+                int blockZ = (int) Math.floor(posZ[i]);
+                if (blockX >> 4 != cachedX || blockZ >> 4 != cachedZ) {
+                    cachedX = blockX >> 4;
+                    cachedZ = blockZ >> 4;
+                    cachedChunk = world.getLoadedChunk(cachedX, cachedZ);
+                }
+                
+                onGround[i] = false;
+                if (cachedChunk == null) {
+                    // Unloaded terrain: hold the entity in place rather than let it fall forever
+                    velY[i] = 0;
+                    continue;
+                }
+                if (blockY >= 0 && blockY < Chunk.CHUNK_HEIGHT && velY[i] <= 0) {
+                    Block below = cachedChunk.getBlock(blockX & 15, blockY, blockZ & 15);
+                    if (below != null && below.isSolid()) {
+                        posY[i] = blockY + 1;
+                        velY[i] = 0;
+                        onGround[i] = true;
+                    }
+                }
+            }
+        }
+        
+        private void rebuildBuckets() {
+            buckets.clear();
+            for (int i = 0; i < count; i++) {
+                // put returns the previous head (or NO_ENTITY), which becomes this entity's next
+                bucketNext[i] = buckets.put(LongIntTable.columnKey((int) Math.floor(posX[i]) >> 4, (int) Math.floor(posZ[i]) >> 4), i);
+            }
+        }
+        
+        /**
+         * Visits every entity whose feet position lies within radius of (x, y, z) and returns
+         * how many there were. Only the chunk columns overlapping the radius are scanned.
+         */
+        public int forEachInRange(float x, float y, float z, float radius, EntityVisitor visitor) {
+            float radiusSq = radius * radius;
+            int found = 0;
+            for (int cx = (int) Math.floor(x - radius) >> 4; cx <= (int) Math.floor(x + radius) >> 4; cx++) {
+                for (int cz = (int) Math.floor(z - radius) >> 4; cz <= (int) Math.floor(z + radius) >> 4; cz++) {
+                    for (int i = buckets.get(LongIntTable.columnKey(cx, cz)); i != NO_ENTITY; i = bucketNext[i]) {
+                        float dx = posX[i] - x, dy = posY[i] - y, dz = posZ[i] - z;
+                        if (dx * dx + dy * dy + dz * dz <= radiusSq) {
+                            visitor.visit(indexToId[i]);
+                            found++;
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+        
+        // Visits every other entity whose AABB overlaps this one's; entities are assumed narrower than a chunk
+        public int forEachColliding(int id, EntityVisitor visitor) {
+            int self = indexOf(id);
+            if (self == NO_ENTITY) return 0;
+            
+            int found = 0;
+            int chunkX = (int) Math.floor(posX[self]) >> 4;
+            int chunkZ = (int) Math.floor(posZ[self]) >> 4;
+            for (int cx = chunkX - 1; cx <= chunkX + 1; cx++) {
+                for (int cz = chunkZ - 1; cz <= chunkZ + 1; cz++) {
+                    for (int i = buckets.get(LongIntTable.columnKey(cx, cz)); i != NO_ENTITY; i = bucketNext[i]) {
+                        if (i != self && overlaps(self, i)) {
+                            visitor.visit(indexToId[i]);
+                            found++;
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+        
+        private boolean overlaps(int a, int b) {
+            float reach = halfWidth[a] + halfWidth[b];
+            return Math.abs(posX[a] - posX[b]) < reach && Math.abs(posZ[a] - posZ[b]) < reach
+                && posY[a] < posY[b] + height[b] && posY[b] < posY[a] + height[a];
+        }
+        
+        // Visits every live entity of one kind; do not spawn from the visitor
+        public int forEachOfKind(EntityKind entityKind, EntityVisitor visitor) {
+            int found = 0;
+            for (int i = 0; i < count; i++) {
+                if (kind[i] == entityKind.ordinal()) {
+                    visitor.visit(indexToId[i]);
+                    found++;
+                }
+            }
+            return found;
+        }
+        
+        public boolean isAlive(int id) {
+            return indexOf(id) != NO_ENTITY;
+        }
+        
+        // Array index of a live entity, or NO_ENTITY for unknown ids and ids of removed entities
+        private int indexOf(int id) {
+            if (id < 0) return NO_ENTITY;
+            int slot = id & SLOT_MASK;
+            if (slot >= slotToIndex.length || slotGeneration[slot] != id >>> SLOT_BITS) return NO_ENTITY;
+            return slotToIndex[slot];
+        }
+        
+        private int liveIndex(int id) {
+            int index = indexOf(id);
+            if (index == NO_ENTITY) {
+                throw new IllegalArgumentException("No live entity with id " + id);
+            }
+            return index;
+        }
+        
+        public void setVelocity(int id, float x, float y, float z) {
+            int index = liveIndex(id);
+            velX[index] = x;
+            velY[index] = y;
+            velZ[index] = z;
+            onGround[index] = false;
+        }
+        
+        public void setPosition(int id, float x, float y, float z) {
+            int index = liveIndex(id);
+            posX[index] = x;
+            posY[index] = y;
+            posZ[index] = z;
+        }
+        
+        public float getX(int id) { return posX[liveIndex(id)]; }
+        public float getY(int id) { return posY[liveIndex(id)]; }
+        public float getZ(int id) { return posZ[liveIndex(id)]; }
+        public EntityKind getKind(int id) { return KINDS[kind[liveIndex(id)]]; }
+        public boolean isOnGround(int id) { return onGround[liveIndex(id)]; }
+        public int getData(int id) { return data[liveIndex(id)]; }
+        public void setData(int id, int value) { data[liveIndex(id)] = value; }
+        public int getCount() { return count; }
+        public double getLastTickMillis() { return lastTickNanos / 1_000_000.0; }
+        
+        public void cleanup() {
+            tickPool.shutdown();
+        }
+    }
+    
+    // INPUT HANDLER
+    
+    public static class InputHandler {
+        private boolean[] keys;
+        private boolean[] mouseButtons;
+        private double mouseX, mouseY;
+        private double lastMouseX, lastMouseY;
+        private double mouseDX, mouseDY;
+        private boolean mouseLocked = false;
+        
+        private GLFWKeyCallback keyCallback;
+        private GLFWMouseButtonCallback mouseButtonCallback;
+        private GLFWCursorPosCallback cursorPosCallback;
+        
+        public InputHandler() {
+            keys = new boolean[GLFW_KEY_LAST + 1];
+            mouseButtons = new boolean[GLFW_MOUSE_BUTTON_LAST + 1];
+            Arrays.fill(keys, false);
+            Arrays.fill(mouseButtons, false);
+        }
+        
+        public void init(long windowHandle) {
+            keyCallback = glfwSetKeyCallback(windowHandle, (window, key, scancode, action, mods) -> {
+                if (key >= 0 && key < keys.length) {
+                    keys[key] = action != GLFW_RELEASE;
+                }
+                
+                if (key == GLFW_KEY_ESCAPE && action == GLFW_PRESS) {
+                    mouseLocked = !mouseLocked;
+                    glfwSetInputMode(window, GLFW_CURSOR, 
+                        mouseLocked ? GLFW_CURSOR_DISABLED : GLFW_CURSOR_NORMAL);
+                }
+            });
+            
+            mouseButtonCallback = glfwSetMouseButtonCallback(windowHandle, (window, button, action, mods) -> {
+                if (button >= 0 && button < mouseButtons.length) {
+                    mouseButtons[button] = action != GLFW_RELEASE;
+                }
+            });
+            
+            cursorPosCallback = glfwSetCursorPosCallback(windowHandle, (window, xpos, ypos) -> {
+                mouseX = xpos;
+                mouseY = ypos;
+            });
+        }
+        
+        public void update() {
+            mouseDX = mouseX - lastMouseX;
+            mouseDY = mouseY - lastMouseY;
+            lastMouseX = mouseX;
+            lastMouseY = mouseY;
+        }
+        
+        public boolean isKeyPressed(int keyCode) {
+            return keyCode >= 0 && keyCode < keys.length && keys[keyCode];
+        }
+        
+        public boolean isMouseButtonPressed(int button) {
+            return button >= 0 && button < mouseButtons.length && mouseButtons[button];
+        }
+        
+        public double getMouseX() { return mouseX; }
+        public double getMouseY() { return mouseY; }
+        public double getMouseDX() { return mouseDX; }
+        public double getMouseDY() { return mouseDY; }
+        public boolean isMouseLocked() { return mouseLocked; }
+        
+        public void cleanup() {
+            if (keyCallback != null) keyCallback.free();
+            if (mouseButtonCallback != null) mouseButtonCallback.free();
+            if (cursorPosCallback != null) cursorPosCallback.free();
+        }
+    }
+    
+    // WINDOW CLASS
+    
+    public static class Window {
+        private long windowHandle;
+        private String title;
+        private int width, height;
         private boolean resized;
         
         public Window(String title, int width, int height) {
@@ -631,8 +1810,8 @@ public class MinecraftClone {
             glfwDefaultWindowHints();
             glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
             glfwWindowHint(GLFW_RESIZABLE, GLFW_TRUE);
-            glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
-            glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 2);
+            glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 4);
+            glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 6);
             glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
             glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GL_TRUE);
             
@@ -702,53 +1881,788 @@ public class MinecraftClone {
         }
     }
     
+    // ==================== TEXTURE ARRAY BUILDER ====================
+    
+    /**
+     * Slices the block atlas (terrain.png, ATLAS_TILES_PER_ROW tiles per row) into one
+     * GL_TEXTURE_2D_ARRAY layer per tile index, builds the mip chain on the CPU and caches
+     * the result on disk. A warm start only checks the source checksum and reads the cache.
+     */
+    public static class TextureArrayBuilder {
+        private static final int CACHE_MAGIC = 0x54415252; // "TARR"
+        private static final int CACHE_VERSION = 1;
+        private static final int FALLBACK_TILE_SIZE = 16;
+        
+        private final Path atlasFile;
+        private final Path cacheFile;
+        
+        public TextureArrayBuilder(Path atlasFile, Path cacheFile) {
+            this.atlasFile = atlasFile;
+            this.cacheFile = cacheFile;
+        }
+        
+        public static class PackedTextureArray {
+            private final int tileSize;
+            private final int layers;
+            private final ByteBuffer[] levels;
+            
+            public PackedTextureArray(int tileSize, int layers, ByteBuffer[] levels) {
+                this.tileSize = tileSize;
+                this.layers = layers;
+                this.levels = levels;
+            }
+            
+            public int getTileSize() { return tileSize; }
+            public int getLayers() { return layers; }
+            public int getLevelCount() { return levels.length; }
+            public ByteBuffer getLevel(int level) { return levels[level]; }
+        }
+        
+        public PackedTextureArray build() throws IOException {
+            long start = System.nanoTime();
+            byte[] source = Files.exists(atlasFile) ? Files.readAllBytes(atlasFile) : new byte[0];
+            long key = cacheKey(source);
+            
+            PackedTextureArray packed = readCache(key);
+            boolean warm = packed != null;
+            if (!warm) {
+                packed = pack(source);
+                writeCache(key, packed);
+            }
+            
+            System.out.printf("Texture array %dx%d x%d layers, %d mip levels ready in %.1f ms (%s cache)%n",
+                packed.getTileSize(), packed.getTileSize(), packed.getLayers(), packed.getLevelCount(),
+                (System.nanoTime() - start) / 1_000_000.0, warm ? "warm" : "cold");
+            return packed;
+        }
+        
+        // Changes to the atlas image or to registered face tiles both invalidate the cache
+        private long cacheKey(byte[] source) {
+            CRC32 crc = new CRC32();
+            crc.update(source);
+            // CRC32.update(int) only takes the low byte, so feed whole ints through a buffer
+            ByteBuffer ints = ByteBuffer.allocate(4 * (1 + BlockFace.ALL.length));
+            for (int id = 0; id < BlockRegistry.size(); id++) {
+                if (!BlockRegistry.isRegistered(id)) continue;
+                ints.clear();
+                ints.putInt(id);
+                for (BlockFace face : BlockFace.ALL) {
+                    ints.putInt(BlockRegistry.getFaceTile(id, face));
+                }
+                crc.update(ints.array(), 0, ints.position());
+            }
+            return crc.getValue();
+        }
+        
+        private PackedTextureArray pack(byte[] source) throws IOException {
+            int layers = 1;
+            for (int id = 0; id < BlockRegistry.size(); id++) {
+                if (!BlockRegistry.isRegistered(id)) continue;
+                for (BlockFace face : BlockFace.ALL) {
+                    layers = Math.max(layers, BlockRegistry.getFaceTile(id, face) + 1);
+                }
+            }
+            
+            BufferedImage atlas = source.length > 0 ? ImageIO.read(new ByteArrayInputStream(source)) : null;
+            if (atlas == null) {
+                System.err.println("Block atlas " + atlasFile + " not found, using placeholder colours");
+            }
+            int tileSize = atlas != null ? atlas.getWidth() / BlockRegistry.ATLAS_TILES_PER_ROW : FALLBACK_TILE_SIZE;
+            int levelCount = Integer.numberOfTrailingZeros(Integer.highestOneBit(tileSize)) + 1;
+            
+            ByteBuffer[] levels = new ByteBuffer[levelCount];
+            levels[0] = ByteBuffer.allocateDirect(tileSize * tileSize * 4 * layers);
+            int[] row = new int[tileSize];
+            for (int layer = 0; layer < layers; layer++) {
+                int tileX = (layer % BlockRegistry.ATLAS_TILES_PER_ROW) * tileSize;
+                int tileY = (layer / BlockRegistry.ATLAS_TILES_PER_ROW) * tileSize;
+                boolean inAtlas = atlas != null && tileY + tileSize <= atlas.getHeight();
+                
+                for (int y = 0; y < tileSize; y++) {
+                    if (inAtlas) {
+                        atlas.getRGB(tileX, tileY + y, tileSize, 1, row, 0, tileSize);
+                    } else {
+                        Arrays.fill(row, placeholderColour(layer));
+                    }
+                    for (int argb : row) {
+                        levels[0].put((byte) (argb >> 16)).put((byte) (argb >> 8)).put((byte) argb).put((byte) (argb >>> 24));
+                    }
+                }
+            }
+            levels[0].flip();
+            
+            for (int level = 1; level < levelCount; level++) {
+                levels[level] = downsample(levels[level - 1], tileSize >> (level - 1), layers);
+            }
+            return new PackedTextureArray(tileSize, layers, levels);
+        }
+        
+        private static int placeholderColour(int layer) {
+            int hash = layer * 0x9E3779B1;
+            return 0xFF000000 | (hash >>> 8);
+        }
+        
+        // 2x2 box filter per layer
+        private static ByteBuffer downsample(ByteBuffer src, int size, int layers) {
+            int half = Math.max(1, size / 2);
+            ByteBuffer dst = ByteBuffer.allocateDirect(half * half * 4 * layers);
+            
+            for (int layer = 0; layer < layers; layer++) {
+                int base = layer * size * size * 4;
+                for (int y = 0; y < half; y++) {
+                    for (int x = 0; x < half; x++) {
+                        for (int c = 0; c < 4; c++) {
+                            int sum = 0;
+                            for (int dy = 0; dy < 2; dy++) {
+                                for (int dx = 0; dx < 2; dx++) {
+                                    int sx = Math.min(size - 1, x * 2 + dx);
+                                    int sy = Math.min(size - 1, y * 2 + dy);
+                                    sum += src.get(base + (sy * size + sx) * 4 + c) & 0xFF;
+                                }
+                            }
+                            dst.put((byte) ((sum + 2) / 4));
+                        }
+                    }
+                }
+            }
+            dst.flip();
+            return dst;
+        }
+        
+        private PackedTextureArray readCache(long key) {
+            if (!Files.exists(cacheFile)) return null;
+            
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+                if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION || in.readLong() != key) {
+                    return null;
+                }
+                int tileSize = in.readInt();
+                int layers = in.readInt();
+                ByteBuffer[] levels = new ByteBuffer[in.readInt()];
+                byte[] chunk = new byte[8192];
+                
+                for (int level = 0; level < levels.length; level++) {
+                    int size = in.readInt();
+                    levels[level] = ByteBuffer.allocateDirect(size);
+                    while (levels[level].hasRemaining()) {
+                        int n = Math.min(chunk.length, levels[level].remaining());
+                        in.readFully(chunk, 0, n);
+                        levels[level].put(chunk, 0, n);
+                    }
+                    levels[level].flip();
+                }
+                return new PackedTextureArray(tileSize, layers, levels);
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable texture cache " + cacheFile + ": " + e.getMessage());
+                return null;
+            }
+        }
+        
+        private void writeCache(long key, PackedTextureArray packed) throws IOException {
+            if (cacheFile.getParent() != null) {
+                Files.createDirectories(cacheFile.getParent());
+            }
+            Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(28);
+                header.putInt(CACHE_MAGIC).putInt(CACHE_VERSION).putLong(key)
+                    .putInt(packed.getTileSize()).putInt(packed.getLayers()).putInt(packed.getLevelCount());
+                header.flip();
+                channel.write(header);
+                
+                for (int level = 0; level < packed.getLevelCount(); level++) {
+                    ByteBuffer data = packed.getLevel(level).duplicate();
+                    ByteBuffer length = ByteBuffer.allocate(4).putInt(data.remaining());
+                    length.flip();
+                    channel.write(length);
+                    while (data.hasRemaining()) {
+                        channel.write(data);
+                    }
+                }
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+    
+    // ==================== OCCLUSION CULLING ====================
+    
+    /**
+     * Cave culling over 16^3 sections. Each section stores a 36-bit mask where bit
+     * (a * 6 + b) means faces a and b (BlockFace ordinals) are joined by non-opaque cells.
+     * A breadth-first walk from the camera's section only leaves a section through a face
+     * that is connected to the face it entered by, and never steps back towards the camera,
+     * so sections sealed off behind solid rock are never reached.
+     */
+    public static class CaveCuller {
+        public static final long ALL_CONNECTED = (1L << 36) - 1;
+        
+        private static final int[] OPPOSITE = new int[6];
+        private static final int[][] STEP = new int[6][];
+        
+        static {
+            for (BlockFace face : BlockFace.ALL) {
+                OPPOSITE[face.ordinal()] = switch (face) {
+                    case TOP -> BlockFace.BOTTOM.ordinal();
+                    case BOTTOM -> BlockFace.TOP.ordinal();
+                    case NORTH -> BlockFace.SOUTH.ordinal();
+                    case SOUTH -> BlockFace.NORTH.ordinal();
+                    case EAST -> BlockFace.WEST.ordinal();
+                    case WEST -> BlockFace.EAST.ordinal();
+                };
+                STEP[face.ordinal()] = switch (face) {
+                    case TOP -> new int[]{0, 1, 0};
+                    case BOTTOM -> new int[]{0, -1, 0};
+                    case NORTH -> new int[]{0, 0, -1};
+                    case SOUTH -> new int[]{0, 0, 1};
+                    case EAST -> new int[]{1, 0, 0};
+                    case WEST -> new int[]{-1, 0, 0};
+                };
+            }
+        }
+        
+        // World lookup used by the walk; kept abstract so culling runs without a GPU or World
+        public interface SectionGraph {
+            boolean isLoaded(int sectionX, int sectionY, int sectionZ);
+            long getVisibility(int sectionX, int sectionY, int sectionZ);
+        }
+        
+        @FunctionalInterface
+        public interface SectionVisitor {
+            void visit(int sectionX, int sectionY, int sectionZ);
+        }
+        
+        // Every pairwise connection between the faces set in faceMask
+        public static long connectAll(int faceMask) {
+            long bits = 0;
+            for (int a = 0; a < 6; a++) {
+                if ((faceMask & (1 << a)) == 0) continue;
+                for (int b = 0; b < 6; b++) {
+                    if ((faceMask & (1 << b)) != 0) bits |= 1L << (a * 6 + b);
+                }
+            }
+            return bits;
+        }
+        
+        public static boolean connects(long visibility, int fromFace, int toFace) {
+            return (visibility & (1L << (fromFace * 6 + toFace))) != 0;
+        }
+        
+        // Breadth-first queue of {x, y, z, entry face or -1, mask of directions travelled} records.
+        // Every section is queued at most once per walk, so it only ever grows, never wraps.
+        private static final int NODE_INTS = 5;
+        private int[] queue = new int[NODE_INTS * 1024];
+        
+        // Visited sections by packed position; clearing between walks is O(1)
+        private final LongIntTable visited = new LongIntTable(0);
+        
+        /**
+         * Visits every section that may be visible from the start section and returns how many
+         * there were. Sections outside [0, sectionsY) or not loaded are never entered.
+         */
+        public int cull(int startX, int startY, int startZ, int sectionsY, SectionGraph graph, SectionVisitor visitor) {
+            visited.clear();
+            startY = Math.max(0, Math.min(sectionsY - 1, startY));
+            if (!graph.isLoaded(startX, startY, startZ)) return 0;
+            
+            int head = 0, tail = 0;
+            tail = enqueue(tail, startX, startY, startZ, -1, 0);
+            markVisited(key(startX, startY, startZ));
+            
+            while (head < tail) {
+                int x = queue[head], y = queue[head + 1], z = queue[head + 2];
+                int entryFace = queue[head + 3], travelled = queue[head + 4];
+                head += NODE_INTS;
+                visitor.visit(x, y, z);
+                
+                long visibility = graph.getVisibility(x, y, z);
+                for (int face = 0; face < 6; face++) {
+                    if ((travelled & (1 << OPPOSITE[face])) != 0) continue;
+                    if (entryFace >= 0 && !connects(visibility, entryFace, face)) continue;
+                    
+                    int nx = x + STEP[face][0];
+                    int ny = y + STEP[face][1];
+                    int nz = z + STEP[face][2];
+                    if (ny < 0 || ny >= sectionsY || !graph.isLoaded(nx, ny, nz)) continue;
+                    
+                    if (markVisited(key(nx, ny, nz))) {
+                        tail = enqueue(tail, nx, ny, nz, OPPOSITE[face], travelled | (1 << face));
+                    }
+                }
+            }
+            return tail / NODE_INTS;
+        }
+        
+        private int enqueue(int tail, int x, int y, int z, int entryFace, int travelled) {
+            if (tail + NODE_INTS > queue.length) {
+                queue = Arrays.copyOf(queue, queue.length * 2);
+            }
+            queue[tail] = x;
+            queue[tail + 1] = y;
+            queue[tail + 2] = z;
+            queue[tail + 3] = entryFace;
+            queue[tail + 4] = travelled;
+            return tail + NODE_INTS;
+        }
+        
+        // Returns true if the key was not yet visited in this walk
+        private boolean markVisited(long key) {
+            return visited.put(key, 1) == 0;
+        }
+        
+        private static long key(int x, int y, int z) {
+            return LongIntTable.packPosition(x, y, z);
+        }
+    }
+    
+    // ==================== INDIRECT CHUNK DRAWING ====================
+    
+    /**
+     * Vertex-range allocator over the shared chunk vertex buffer. Freed ranges are held back
+     * for FRAMES_IN_FLIGHT frames so the GPU never reads a range that is being overwritten;
+     * the draw backend's endFrame() blocks until the GPU is no further behind than that.
+     */
+    public static class ChunkMeshArena {
+        public static final int FRAMES_IN_FLIGHT = 3;
+        
+        private final int capacity;
+        private final TreeMap<Integer, Integer> freeRanges = new TreeMap<>(); // first vertex -> length
+        private final ArrayDeque<int[]> pendingFrees = new ArrayDeque<>();    // {frame, first, length}
+        private int frame;
+        private int used;
+        
+        public ChunkMeshArena(int capacityVertices) {
+            this.capacity = capacityVertices;
+            freeRanges.put(0, capacityVertices);
+        }
+        
+        // First fit; returns -1 when no free range is large enough
+        public int allocate(int vertexCount) {
+            for (Map.Entry<Integer, Integer> range : freeRanges.entrySet()) {
+                int length = range.getValue();
+                if (length >= vertexCount) {
+                    // Read the entry before removing it: TreeMap may reuse the node on delete
+                    int first = range.getKey();
+                    freeRanges.remove(first);
+                    if (length > vertexCount) {
+                        freeRanges.put(first + vertexCount, length - vertexCount);
+                    }
+                    used += vertexCount;
+                    return first;
+                }
+            }
+            return -1;
+        }
+        
+        public void free(int first, int vertexCount) {
+            pendingFrees.add(new int[]{frame, first, vertexCount});
+        }
+        
+        public void advanceFrame() {
+            frame++;
+            while (!pendingFrees.isEmpty() && frame - pendingFrees.peek()[0] >= FRAMES_IN_FLIGHT) {
+                int[] pending = pendingFrees.poll();
+                release(pending[1], pending[2]);
+            }
+        }
+        
+        private void release(int first, int length) {
+            used -= length;
+            Map.Entry<Integer, Integer> before = freeRanges.floorEntry(first);
+            if (before != null && before.getKey() + before.getValue() == first) {
+                first = before.getKey();
+                length += before.getValue();
+                freeRanges.remove(first);
+            }
+            Integer afterLength = freeRanges.remove(first + length);
+            if (afterLength != null) {
+                length += afterLength;
+            }
+            freeRanges.put(first, length);
+        }
+        
+        public int getCapacity() { return capacity; }
+        public int getUsedVertices() { return used; }
+    }
+    
+    /**
+     * Builds the DrawArraysIndirectCommand stream and the matching per-draw chunk origins.
+     * Draw i reads its origin from chunkOrigins[gl_DrawID] in the vertex shader.
+     */
+    public static class IndirectDrawBatch {
+        public static final int COMMAND_INTS = 4;  // count, instanceCount, first, baseInstance
+        public static final int ORIGIN_FLOATS = 4; // std430 vec4
+        
+        private final int maxDraws;
+        private final IntBuffer commands;
+        private final FloatBuffer origins;
+        private int drawCount;
+        
+        public IndirectDrawBatch(int maxDraws) {
+            this.maxDraws = maxDraws;
+            this.commands = BufferUtils.createIntBuffer(maxDraws * COMMAND_INTS);
+            this.origins = BufferUtils.createFloatBuffer(maxDraws * ORIGIN_FLOATS);
+        }
+        
+        public void begin() {
+            commands.clear();
+            origins.clear();
+            drawCount = 0;
+        }
+        
+        // Returns false for empty draws and when full; callers flush a full batch and add again
+        public boolean add(int firstVertex, int vertexCount, float originX, float originY, float originZ) {
+            if (isFull() || vertexCount == 0) return false;
+            commands.put(vertexCount).put(1).put(firstVertex).put(drawCount);
+            origins.put(originX).put(originY).put(originZ).put(0);
+            drawCount++;
+            return true;
+        }
+        
+        public void end() {
+            commands.flip();
+            origins.flip();
+        }
+        
+        public IntBuffer getCommands() { return commands; }
+        public FloatBuffer getOrigins() { return origins; }
+        public int getDrawCount() { return drawCount; }
+        public int getMaxDraws() { return maxDraws; }
+        public boolean isFull() { return drawCount == maxDraws; }
+    }
+    
+    /**
+     * Picks a chunk's LOD level from its distance (in chunks) to the camera. Level i+1 starts
+     * beyond ringDistances[i]; a chunk only changes level once it is more than `hysteresis`
+     * chunks past a ring boundary, so chunks on a boundary do not flip every frame.
+     */
+    public static class LodSelector {
+        private final float[] ringDistances;
+        private final float hysteresis;
+        
+        public LodSelector(float[] ringDistances, float hysteresis) {
+            if (ringDistances.length > Chunk.MAX_LOD_LEVEL) {
+                throw new IllegalArgumentException("At most " + Chunk.MAX_LOD_LEVEL + " LOD rings supported");
+            }
+            this.ringDistances = ringDistances.clone();
+            this.hysteresis = hysteresis;
+        }
+        
+        public int select(int currentLevel, float distance) {
+            int level = Math.max(0, currentLevel);
+            while (level < ringDistances.length && distance > ringDistances[level] + hysteresis) level++;
+            while (level > 0 && distance < ringDistances[level - 1] - hysteresis) level--;
+            return level;
+        }
+    }
+    
+    // GL side of chunk drawing, kept behind an interface so batching logic runs without a context
+    public interface ChunkDrawBackend {
+        void init(int vertexCapacity, int maxDraws);
+        void writeVertices(int firstVertex, FloatBuffer vertices);
+        void submit(IndirectDrawBatch batch);
+        // Called once per frame after the last submit, before the arena releases held-back ranges
+        void endFrame();
+        void cleanup();
+    }
+    
+    public static class GLChunkDrawBackend implements ChunkDrawBackend {
+        private static final int VERTEX_FLOATS = 5;
+        private static final long FENCE_WAIT_NANOS = 1_000_000_000L;
+        
+        private int vao;
+        private int vertexBuffer;
+        private int commandBuffer;
+        private int originBuffer;
+        private FloatBuffer mappedVertices;
+        
+        // One fence per frame in flight, oldest at fenceSlot once endFrame has advanced it
+        private final long[] frameFences = new long[ChunkMeshArena.FRAMES_IN_FLIGHT];
+        private int fenceSlot;
+        
+        @Override
+        public void init(int vertexCapacity, int maxDraws) {
+            vao = glGenVertexArrays();
+            glBindVertexArray(vao);
+            
+            long vertexBytes = (long) vertexCapacity * VERTEX_FLOATS * Float.BYTES;
+            int flags = GL_MAP_WRITE_BIT | GL44.GL_MAP_PERSISTENT_BIT | GL44.GL_MAP_COHERENT_BIT;
+            vertexBuffer = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+            GL44.glBufferStorage(GL_ARRAY_BUFFER, vertexBytes, flags);
+            mappedVertices = glMapBufferRange(GL_ARRAY_BUFFER, 0, vertexBytes, flags).asFloatBuffer();
+            
+            glVertexAttribPointer(0, 3, GL_FLOAT, false, VERTEX_FLOATS * Float.BYTES, 0);
+            glEnableVertexAttribArray(0);
+            glVertexAttribPointer(1, 2, GL_FLOAT, false, VERTEX_FLOATS * Float.BYTES, 3 * Float.BYTES);
+            glEnableVertexAttribArray(1);
+            
+            commandBuffer = glGenBuffers();
+            glBindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+            glBufferData(GL40.GL_DRAW_INDIRECT_BUFFER, (long) maxDraws * IndirectDrawBatch.COMMAND_INTS * Integer.BYTES, GL_DYNAMIC_DRAW);
+            
+            originBuffer = glGenBuffers();
+            glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, originBuffer);
+            glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, (long) maxDraws * IndirectDrawBatch.ORIGIN_FLOATS * Float.BYTES, GL_DYNAMIC_DRAW);
+            
+            glBindVertexArray(0);
+        }
+        
+        @Override
+        public void writeVertices(int firstVertex, FloatBuffer vertices) {
+            mappedVertices.position(firstVertex * VERTEX_FLOATS);
+            mappedVertices.put(vertices);
+        }
+        
+        @Override
+        public void submit(IndirectDrawBatch batch) {
+            if (batch.getDrawCount() == 0) return;
+            
+            glBindVertexArray(vao);
+            glBindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+            glBufferSubData(GL40.GL_DRAW_INDIRECT_BUFFER, 0, batch.getCommands());
+            glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, originBuffer);
+            glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, 0, batch.getOrigins());
+            glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 0, originBuffer);
+            
+            GL43.glMultiDrawArraysIndirect(GL_TRIANGLES, 0, batch.getDrawCount(), 0);
+            glBindVertexArray(0);
+        }
+        
+        // The mapping is persistent and coherent, so nothing stops a CPU write from landing in a
+        // range the GPU is still drawing. Ranges the arena releases after this frame were last
+        // drawn FRAMES_IN_FLIGHT - 1 frames ago; wait for that frame's fence before they are reused
+        @Override
+        public void endFrame() {
+            frameFences[fenceSlot] = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            fenceSlot = (fenceSlot + 1) % frameFences.length;
+            waitForFence(fenceSlot);
+        }
+        
+        private void waitForFence(int slot) {
+            long fence = frameFences[slot];
+            if (fence == NULL) return;
+            int status;
+            do {
+                status = GL32.glClientWaitSync(fence, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_WAIT_NANOS);
+            } while (status == GL32.GL_TIMEOUT_EXPIRED);
+            if (status == GL32.GL_WAIT_FAILED) {
+                System.err.println("Chunk buffer fence wait failed");
+            }
+            GL32.glDeleteSync(fence);
+            frameFences[slot] = NULL;
+        }
+        
+        @Override
+        public void cleanup() {
+            for (int slot = 0; slot < frameFences.length; slot++) {
+                waitForFence(slot);
+            }
+            glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+            glUnmapBuffer(GL_ARRAY_BUFFER);
+            glDeleteBuffers(vertexBuffer);
+            glDeleteBuffers(commandBuffer);
+            glDeleteBuffers(originBuffer);
+            glDeleteVertexArrays(vao);
+        }
+    }
+    
+    // ==================== EDIT LATENCY ====================
+    
+    // Time from a block edit to the upload of the section mesh that shows it
+    public static class LatencyStats {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        
+        public void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+        
+        public long getCount() { return count; }
+        public double getAverageMillis() { return count == 0 ? 0 : totalNanos / (double) count / 1_000_000.0; }
+        public double getMaxMillis() { return maxNanos / 1_000_000.0; }
+        
+        public void reset() {
+            count = 0;
+            totalNanos = 0;
+            maxNanos = 0;
+        }
+    }
+    
     // ==================== RENDERER CLASS ====================
     
     public static class GameRenderer {
+        private static final int VERTEX_CAPACITY = 4 * 1024 * 1024;
+        private static final int MAX_DRAWS = 16 * 1024;
+        private static final int UPLOAD_FAILED = -2; // uploadVertices: arena had no room
+        
         private int shaderProgram;
         private int projectionMatrixLocation;
         private int viewMatrixLocation;
-        private int modelMatrixLocation;
+        private int textureSamplerLocation;
+        private int blockTextures;
+        
+        private final ChunkDrawBackend drawBackend;
+        private final ChunkMeshArena meshArena = new ChunkMeshArena(VERTEX_CAPACITY);
+        private final IndirectDrawBatch drawBatch = new IndirectDrawBatch(MAX_DRAWS);
+        private final Map<Chunk, ChunkAllocation> allocations = new HashMap<>();
+        private FloatBuffer staging = BufferUtils.createFloatBuffer(64 * 1024);
+        private LodSelector lodSelector = new LodSelector(new float[]{8, 16, 32}, 1.0f);
+        
+        private final CaveCuller caveCuller = new CaveCuller();
+        private final LongIntTable loadedChunks = new LongIntTable(-1);
+        private final List<Chunk> frameChunks = new ArrayList<>();
+        private int chunkGeneration = -1;
+        private int frame;
+        private int visibleSections;
+        private int totalSections;
+        private final LatencyStats editLatency = new LatencyStats();
+        
+        // Full detail is allocated per section so an edit only re-uploads the sections it touched;
+        // LOD meshes are one whole-chunk range in firstVertex/vertexCount
+        private static class ChunkAllocation {
+            int firstVertex = -1;
+            int vertexCount;
+            final int[] sectionFirst = new int[Chunk.SECTIONS];
+            final int[] sectionCount = new int[Chunk.SECTIONS];
+            final int[] sectionVersion = new int[Chunk.SECTIONS];
+            int meshVersion = -1;
+            int lodLevel = -1;
+            int visibleFrame = -1;
+            int visibleSectionMask;
+            
+            ChunkAllocation() {
+                Arrays.fill(sectionFirst, -1);
+                Arrays.fill(sectionVersion, -1);
+            }
+        }
+        
+        // Camera math scratch, reused every frame and uploaded through one off-heap buffer
+        private final Matrix4f projectionMatrix = new Matrix4f();
+        private final Matrix4f viewMatrix = new Matrix4f();
+        private final Vector3f xAxis = new Vector3f();
+        private final Vector3f yAxis = new Vector3f();
+        private final Vector3f zAxis = new Vector3f();
+        private final FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
+        
+        // Loaded chunk lookup by column: index into frameChunks
+        private Chunk loadedChunk(int chunkX, int chunkZ) {
+            int index = loadedChunks.get(LongIntTable.columnKey(chunkX, chunkZ));
+            return index < 0 ? null : frameChunks.get(index);
+        }
+        
+        // Created once so the per-frame culling walk does not allocate
+        private final CaveCuller.SectionGraph sectionGraph = new CaveCuller.SectionGraph() {
+            @Override
+            public boolean isLoaded(int sectionX, int sectionY, int sectionZ) {
+                return loadedChunks.containsKey(LongIntTable.columnKey(sectionX, sectionZ));
+            }
+            
+            @Override
+            public long getVisibility(int sectionX, int sectionY, int sectionZ) {
+                return loadedChunk(sectionX, sectionZ).getMesh().getSectionVisibility(sectionY);
+            }
+        };
+        
+        private final CaveCuller.SectionVisitor sectionVisitor = (sectionX, sectionY, sectionZ) -> {
+            ChunkAllocation allocation = allocations.computeIfAbsent(
+                loadedChunk(sectionX, sectionZ), c -> new ChunkAllocation());
+            if (allocation.visibleFrame != frame) {
+                allocation.visibleFrame = frame;
+                allocation.visibleSectionMask = 0;
+            }
+            allocation.visibleSectionMask |= 1 << sectionY;
+        };
+        
+        public GameRenderer() {
+            this(new GLChunkDrawBackend());
+        }
+        
+        public GameRenderer(ChunkDrawBackend drawBackend) {
+            this.drawBackend = drawBackend;
+        }
         
         public void init() throws Exception {
             shaderProgram = createShaderProgram();
             
             projectionMatrixLocation = glGetUniformLocation(shaderProgram, "projectionMatrix");
             viewMatrixLocation = glGetUniformLocation(shaderProgram, "viewMatrix");
-            modelMatrixLocation = glGetUniformLocation(shaderProgram, "modelMatrix");
+            textureSamplerLocation = glGetUniformLocation(shaderProgram, "textureSampler");
+            drawBackend.init(VERTEX_CAPACITY, MAX_DRAWS);
+            
+            TextureArrayBuilder.PackedTextureArray packed = new TextureArrayBuilder(
+                Paths.get("textures", "terrain.png"), Paths.get("cache", "terrain-array.bin")).build();
+            blockTextures = uploadTextureArray(packed);
             
             glEnable(GL_DEPTH_TEST);
         }
         
+        private int uploadTextureArray(TextureArrayBuilder.PackedTextureArray packed) {
+            int texture = glGenTextures();
+            glBindTexture(GL_TEXTURE_2D_ARRAY, texture);
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+            
+            for (int level = 0; level < packed.getLevelCount(); level++) {
+                int size = Math.max(1, packed.getTileSize() >> level);
+                glTexImage3D(GL_TEXTURE_2D_ARRAY, level, GL_RGBA8, size, size, packed.getLayers(), 0,
+                    GL_RGBA, GL_UNSIGNED_BYTE, packed.getLevel(level));
+            }
+            
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAX_LEVEL, packed.getLevelCount() - 1);
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, GL_NEAREST_MIPMAP_LINEAR);
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_S, GL_REPEAT);
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_T, GL_REPEAT);
+            return texture;
+        }
+        
         private int createShaderProgram() {
             String vertexShaderSource = """
-                #version 330 core
-                layout (location = 0) in vec3 position;
-                layout (location = 1) in vec2 texCoord;
+                #version 460 core
+                layout (location = 0) in vec3 position; // chunk-local
+                layout (location = 1) in vec2 texData;  // x = array layer, y = BlockFace ordinal
+                
+                layout (std430, binding = 0) readonly buffer ChunkOrigins {
+                    vec4 chunkOrigins[];
+                };
                 
                 uniform mat4 projectionMatrix;
                 uniform mat4 viewMatrix;
-                uniform mat4 modelMatrix;
                 
-                out vec2 fragTexCoord;
+                out vec2 faceCoord;
+                flat out float layer;
+                flat out int face;
                 
                 void main() {
-                    gl_Position = projectionMatrix * viewMatrix * modelMatrix * vec4(position, 1.0);
-                    fragTexCoord = texCoord;
+                    vec3 worldPosition = position + chunkOrigins[gl_DrawID].xyz;
+                    gl_Position = projectionMatrix * viewMatrix * vec4(worldPosition, 1.0);
+                    face = int(texData.y);
+                    layer = texData.x;
+                    // Unwrapped block-space coordinate; the fragment shader takes fract() of it
+                    if (face <= 1) faceCoord = position.xz;
+                    else if (face <= 3) faceCoord = vec2(position.x, -position.y);
+                    else faceCoord = vec2(position.z, -position.y);
                 }
                 """;
                 
             String fragmentShaderSource = """
-                #version 330 core
-                in vec2 fragTexCoord;
+                #version 460 core
+                in vec2 faceCoord;
+                flat in float layer;
+                flat in int face;
                 out vec4 fragColor;
                 
-                uniform sampler2D textureSampler;
+                uniform sampler2DArray textureSampler;
                 
                 void main() {
-                    fragColor = texture(textureSampler, fragTexCoord);
-                    if (fragTexCoord.y > 0.8) fragColor *= 1.2;
-                    else if (fragTexCoord.y < 0.2) fragColor *= 0.7;
+                    fragColor = texture(textureSampler, vec3(fract(faceCoord), layer));
+                    if (fragColor.a < 0.5) discard;
+                    if (face == 0) fragColor.rgb *= 1.2;
+                    else if (face == 1) fragColor.rgb *= 0.7;
                 }
                 """;
                 
@@ -778,108 +2692,278 @@ public class MinecraftClone {
         public void render(World world, Player player) {
             glUseProgram(shaderProgram);
             
+            glActiveTexture(GL_TEXTURE0);
+            glBindTexture(GL_TEXTURE_2D_ARRAY, blockTextures);
+            glUniform1i(textureSamplerLocation, 0);
+            
+            updateCamera(player);
+            glUniformMatrix4fv(projectionMatrixLocation, false, projectionMatrix.get(matrixBuffer));
+            glUniformMatrix4fv(viewMatrixLocation, false, viewMatrix.get(matrixBuffer));
+            
+            drawChunks(world, player);
+        }
+        
+        // The rest of the frame goes through JOML and the draw backend only, so bench/RenderAllocationBench
+        // can run both with a no-op backend and no GL context
+        void updateCamera(Player player) {
             float aspectRatio = 1200.0f / 800.0f;
             float fov = 70.0f;
             float near = 0.1f;
             float far = 1000.0f;
             
-            float[] projectionMatrix = createProjectionMatrix(fov, aspectRatio, near, far);
-            glUniformMatrix4fv(projectionMatrixLocation, false, projectionMatrix);
-            
-            float[] viewMatrix = createViewMatrix(player);
-            glUniformMatrix4fv(viewMatrixLocation, false, viewMatrix);
-            
-            for (Chunk chunk : world.getChunks().values()) {
-                renderChunk(chunk);
-            }
+            updateProjectionMatrix(fov, aspectRatio, near, far);
+            updateViewMatrix(player);
         }
         
-        private void renderChunk(Chunk chunk) {
-            if (chunk.getMeshData().isEmpty()) return;
+        // Culls, uploads what changed and submits one indirect batch
+        void drawChunks(World world, Player player) {
+            Vector3f cameraPosition = player.getPosition();
+            float cameraChunkX = cameraPosition.x / Chunk.CHUNK_SIZE;
+            float cameraChunkZ = cameraPosition.z / Chunk.CHUNK_SIZE;
             
-            int vao = glGenVertexArrays();
-            int vbo = glGenBuffers();
+            frame++;
+            refreshChunks(world);
+            cullSections(player);
             
-            glBindVertexArray(vao);
-            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            drawBatch.begin();
+            for (int i = 0; i < frameChunks.size(); i++) {
+                Chunk chunk = frameChunks.get(i);
+                float dx = chunk.getChunkX() + 0.5f - cameraChunkX;
+                float dz = chunk.getChunkZ() + 0.5f - cameraChunkZ;
+                ChunkAllocation allocation = uploadChunk(world, chunk, (float) Math.sqrt(dx * dx + dz * dz));
+                if (allocation.visibleFrame != frame) continue;
+                
+                float originX = chunk.getChunkX() * Chunk.CHUNK_SIZE;
+                float originZ = chunk.getChunkZ() * Chunk.CHUNK_SIZE;
+                if (allocation.lodLevel > 0) {
+                    if (allocation.firstVertex >= 0) {
+                        addDraw(allocation.firstVertex, allocation.vertexCount, originX, originZ);
+                    }
+                    continue;
+                }
+                
+                // One draw per visible section, merged with the next when they sit back to back in the arena
+                int runFirst = -1, runCount = 0;
+                for (int section = 0; section < Chunk.SECTIONS; section++) {
+                    if ((allocation.visibleSectionMask & (1 << section)) == 0 || allocation.sectionFirst[section] < 0) continue;
+                    int first = allocation.sectionFirst[section];
+                    if (runFirst >= 0 && runFirst + runCount == first) {
+                        runCount += allocation.sectionCount[section];
+                        continue;
+                    }
+                    if (runFirst >= 0) addDraw(runFirst, runCount, originX, originZ);
+                    runFirst = first;
+                    runCount = allocation.sectionCount[section];
+                }
+                if (runFirst >= 0) addDraw(runFirst, runCount, originX, originZ);
+            }
+            drawBatch.end();
             
-            List<float[]> meshData = chunk.getMeshData();
-            FloatBuffer buffer = BufferUtils.createFloatBuffer(meshData.size() * 5);
-            for (float[] data : meshData) {
-                buffer.put(data);
+            drawBackend.submit(drawBatch);
+            drawBackend.endFrame();
+            meshArena.advanceFrame();
+        }
+        
+        // A full batch is drawn and restarted rather than dropping the remaining chunks
+        private void addDraw(int firstVertex, int vertexCount, float originX, float originZ) {
+            if (drawBatch.add(firstVertex, vertexCount, originX, 0, originZ) || !drawBatch.isFull()) {
+                return;
+            }
+            drawBatch.end();
+            drawBackend.submit(drawBatch);
+            drawBatch.begin();
+            drawBatch.add(firstVertex, vertexCount, originX, 0, originZ);
+        }
+        
+        // The cached chunk list is rebuilt only when the world's chunk generation moves on
+        private void refreshChunks(World world) {
+            int generation = world.getChunkGeneration();
+            if (generation == chunkGeneration) return;
+            chunkGeneration = generation;
+            
+            frameChunks.clear();
+            frameChunks.addAll(world.getChunks().values());
+            loadedChunks.clear();
+            for (int i = 0; i < frameChunks.size(); i++) {
+                Chunk chunk = frameChunks.get(i);
+                loadedChunks.put(LongIntTable.columnKey(chunk.getChunkX(), chunk.getChunkZ()), i);
             }
-            buffer.flip();
+            // Give back the buffer space of chunks that were unloaded
+            Iterator<Map.Entry<Chunk, ChunkAllocation>> iterator = allocations.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Chunk, ChunkAllocation> entry = iterator.next();
+                Chunk chunk = entry.getKey();
+                if (loadedChunk(chunk.getChunkX(), chunk.getChunkZ()) != chunk) {
+                    freeAll(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        
+        private void cullSections(Player player) {
+            totalSections = loadedChunks.size() * Chunk.SECTIONS;
             
-            glBufferData(GL_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
+            Vector3f eye = player.getEyePosition();
+            visibleSections = caveCuller.cull(
+                (int) Math.floor(eye.x) >> 4, (int) Math.floor(eye.y) >> 4, (int) Math.floor(eye.z) >> 4,
+                Chunk.SECTIONS, sectionGraph, sectionVisitor);
+        }
+        
+        // Fraction of loaded sections the last frame's cave culling skipped
+        public float getCulledFraction() {
+            return totalSections == 0 ? 0 : 1.0f - (float) visibleSections / totalSections;
+        }
+        
+        public LatencyStats getEditLatency() {
+            return editLatency;
+        }
+        
+        /*
+          Re-uploads into the shared buffer only what changed: at full detail the sections whose
+          version moved on since the last upload, otherwise the whole LOD mesh when the level or
+          mesh changed. If the wanted LOD mesh is not cached yet its build is queued and the chunk
+          keeps drawing at its current level meanwhile.
+         */
+        private ChunkAllocation uploadChunk(World world, Chunk chunk, float distance) {
+            ChunkAllocation allocation = allocations.computeIfAbsent(chunk, c -> new ChunkAllocation());
+            Chunk.ChunkMesh currentMesh = chunk.getMesh();
+            int version = currentMesh.getVersion();
+            int level = lodSelector.select(allocation.lodLevel, distance);
+            if (allocation.meshVersion == version && allocation.lodLevel == level) {
+                return allocation;
+            }
             
-            glVertexAttribPointer(0, 3, GL_FLOAT, false, 5 * Float.BYTES, 0);
-            glEnableVertexAttribArray(0);
+            if (level > 0) {
+                List<float[]> lodMesh = chunk.getLodMesh(level);
+                if (lodMesh != null) {
+                    freeAll(allocation);
+                    int first = uploadVertices(chunk, lodMesh);
+                    allocation.vertexCount = first >= 0 ? lodMesh.size() / 2 : 0;
+                    allocation.firstVertex = Math.max(first, -1);
+                    // A failed upload leaves the version unrecorded so the next frame retries it
+                    allocation.meshVersion = first == UPLOAD_FAILED ? -1 : version;
+                    allocation.lodLevel = level;
+                    return allocation;
+                }
+                world.requestLodMesh(chunk, level);
+                if (allocation.lodLevel > 0) {
+                    return allocation;
+                }
+            }
             
-            glVertexAttribPointer(1, 2, GL_FLOAT, false, 5 * Float.BYTES, 3 * Float.BYTES);
-            glEnableVertexAttribArray(1);
+            if (allocation.lodLevel != 0) {
+                freeAll(allocation);
+            }
+            long now = System.nanoTime();
+            boolean complete = true;
+            for (int section = 0; section < Chunk.SECTIONS; section++) {
+                int sectionVersion = currentMesh.getSectionVersion(section);
+                if (allocation.sectionVersion[section] == sectionVersion) continue;
+                
+                if (allocation.sectionFirst[section] >= 0) {
+                    meshArena.free(allocation.sectionFirst[section], allocation.sectionCount[section]);
+                }
+                List<float[]> vertices = currentMesh.getSectionVertices(section);
+                int first = uploadVertices(chunk, vertices);
+                if (first == UPLOAD_FAILED) {
+                    // Keep the section dirty (old version) so it is uploaded once space frees up
+                    allocation.sectionFirst[section] = -1;
+                    allocation.sectionVersion[section] = -1;
+                    complete = false;
+                    continue;
+                }
+                allocation.sectionCount[section] = vertices.size() / 2;
+                allocation.sectionFirst[section] = first;
+                
+                long editNanos = currentMesh.getSectionEditNanos(section);
+                if (editNanos != 0 && allocation.sectionVersion[section] >= 0) {
+                    editLatency.record(now - editNanos);
+                }
+                allocation.sectionVersion[section] = sectionVersion;
+            }
+            allocation.meshVersion = complete ? version : -1;
+            allocation.lodLevel = 0;
+            return allocation;
+        }
+        
+        private void freeAll(ChunkAllocation allocation) {
+            if (allocation.firstVertex >= 0) {
+                meshArena.free(allocation.firstVertex, allocation.vertexCount);
+                allocation.firstVertex = -1;
+            }
+            for (int section = 0; section < Chunk.SECTIONS; section++) {
+                if (allocation.sectionFirst[section] >= 0) {
+                    meshArena.free(allocation.sectionFirst[section], allocation.sectionCount[section]);
+                    allocation.sectionFirst[section] = -1;
+                }
+                allocation.sectionVersion[section] = -1;
+            }
+        }
+        
+        // Copies vertices into a fresh arena range; returns its first vertex, -1 if empty or UPLOAD_FAILED if the buffer is full
+        private int uploadVertices(Chunk chunk, List<float[]> meshData) {
+            int vertexCount = meshData.size() / 2;
+            if (vertexCount == 0) {
+                return -1;
+            }
             
-            float[] modelMatrix = createModelMatrix(chunk.getChunkX() * Chunk.CHUNK_SIZE, 0, chunk.getChunkZ() * Chunk.CHUNK_SIZE);
-            glUniformMatrix4fv(modelMatrixLocation, false, modelMatrix);
+            int first = meshArena.allocate(vertexCount);
+            if (first < 0) {
+                System.err.println("Chunk vertex buffer full (" + meshArena.getUsedVertices() + "/" +
+                    meshArena.getCapacity() + " vertices), skipping chunk " + chunk.getChunkX() + "," + chunk.getChunkZ());
+                return UPLOAD_FAILED;
+            }
             
-            glDrawArrays(GL_TRIANGLES, 0, meshData.size() / 2);
+            if (staging.capacity() < meshData.size() * 5) {
+                staging = BufferUtils.createFloatBuffer(meshData.size() * 5);
+            }
+            staging.clear();
+            for (float[] data : meshData) {
+                staging.put(data);
+            }
+            staging.flip();
             
-            glDeleteBuffers(vbo);
-            glDeleteVertexArrays(vao);
+            drawBackend.writeVertices(first, staging);
+            return first;
         }
         
-        private float[] createProjectionMatrix(float fov, float aspect, float near, float far) {
-            float yScale = (float) (1.0f / Math.tan(Math.toRadians(fov / 2f)));
-            float xScale = yScale / aspect;
-            float frustumLength = far - near;
-            
-            return new float[]{
-                xScale, 0, 0, 0,
-                0, yScale, 0, 0,
-                0, 0, -((far + near) / frustumLength), -1,
-                0, 0, -((2 * near * far) / frustumLength), 0
-            };
+        private void updateProjectionMatrix(float fov, float aspect, float near, float far) {
+            projectionMatrix.setPerspective((float) Math.toRadians(fov), aspect, near, far);
         }
         
-        private float[] createViewMatrix(Player player) {
+        private void updateViewMatrix(Player player) {
             Vector3f eyePos = player.getEyePosition();
             Vector3f rotation = player.getRotation();
             
             float pitch = (float) Math.toRadians(rotation.x);
             float yaw = (float) Math.toRadians(rotation.y);
             
-            Vector3f xAxis = new Vector3f();
-            Vector3f yAxis = new Vector3f();
-            Vector3f zAxis = new Vector3f();
-            
-            zAxis.x = (float) (Math.cos(yaw) * Math.cos(pitch));
-            zAxis.y = (float) Math.sin(pitch);
-            zAxis.z = (float) (Math.sin(yaw) * Math.cos(pitch));
-            zAxis.normalize();
+            zAxis.set(
+                (float) (Math.cos(yaw) * Math.cos(pitch)),
+                (float) Math.sin(pitch),
+                (float) (Math.sin(yaw) * Math.cos(pitch))
+            ).normalize();
             
-            xAxis.x = (float) Math.cos(yaw - Math.PI / 2);
-            xAxis.z = (float) Math.sin(yaw - Math.PI / 2);
-            xAxis.normalize();
+            xAxis.set((float) Math.cos(yaw - Math.PI / 2), 0, (float) Math.sin(yaw - Math.PI / 2)).normalize();
             
-            yAxis = new Vector3f(zAxis).cross(xAxis);
+            yAxis.set(zAxis).cross(xAxis);
             
-            return new float[]{
+            // Column-major, same layout the old float[] upload used
+            viewMatrix.set(
                 xAxis.x, yAxis.x, zAxis.x, 0,
                 xAxis.y, yAxis.y, zAxis.y, 0,
                 xAxis.z, yAxis.z, zAxis.z, 0,
                 -xAxis.dot(eyePos), -yAxis.dot(eyePos), -zAxis.dot(eyePos), 1
-            };
+            );
         }
         
-        private float[] createModelMatrix(float x, float y, float z) {
-            return new float[]{
-                1, 0, 0, 0,
-                0, 1, 0, 0,
-                0, 0, 1, 0,
-                x, y, z, 1
-            };
+        public void setLodSelector(LodSelector lodSelector) {
+            this.lodSelector = lodSelector;
         }
         
         public void cleanup() {
+            drawBackend.cleanup();
+            glDeleteTextures(blockTextures);
             glDeleteProgram(shaderProgram);
         }
     }
@@ -895,6 +2979,7 @@ public class MinecraftClone {
         private GameRenderer renderer;
         private World world;
         private Player player;
+        private ContainMod containMod;
         
         private final int TARGET_FPS = 60;
         private final int TARGET_UPS = 20;
@@ -929,6 +3014,7 @@ public class MinecraftClone {
             
             world = World.getInstance();
             player = new Player(world);
+            containMod = new ContainMod(player);
             
             System.out.println("Minecraft Clone initialized successfully!");
             System.out.println("Controls:");
@@ -969,7 +3055,11 @@ public class MinecraftClone {
                 }
                 
                 if (System.currentTimeMillis() - timer > 1000) {
-                    System.out.printf("FPS: %d, UPS: %d%n", frames, ticks);
+                    LatencyStats editLatency = renderer.getEditLatency();
+                    System.out.printf("FPS: %d, UPS: %d, sections culled: %.0f%%, edit latency: %.1f ms avg / %.1f ms max%n",
+                        frames, ticks, renderer.getCulledFraction() * 100,
+                        editLatency.getAverageMillis(), editLatency.getMaxMillis());
+                    editLatency.reset();
                     frames = 0;
                     ticks = 0;
                     timer += 1000;
@@ -980,11 +3070,12 @@ public class MinecraftClone {
         private void update() {
             player.update(input);
             world.update();
+            containMod.update(input, world);
             
             if (input.isMouseButtonPressed(GLFW_MOUSE_BUTTON_LEFT)) {
                 RaycastHit hit = player.getRaycastHit();
                 if (hit != null) {
-                    world.setBlock(hit.getBlockX(), hit.getBlockY(), hit.getBlockZ(), BlockType.AIR);
+                    world.breakBlock(hit.getBlockX(), hit.getBlockY(), hit.getBlockZ());
                 }
             }
             if (input.isMouseButtonPressed(GLFW_MOUSE_BUTTON_RIGHT)) {
@@ -1011,6 +3102,10 @@ public class MinecraftClone {
         }
         
         private void cleanup() {
+            // Save first, so nothing lost to a failing teardown; null if init failed
+            if (containMod != null) {
+                containMod.shutdown();
+            }
             renderer.cleanup();
             world.cleanup();
             input.cleanup();
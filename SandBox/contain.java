@@ -2,105 +2,479 @@
 
 /*
   Contain mod - Adds containers, inventories, and storage systems
-  Includes chests, barrels, and portable storage items
+  Includes chests, barrels, portable storage items and dropped item stacks
  */
 public static class ContainMod {
-    private Map<String, Container> containers;
+    private PositionTable<Container> containers;                // packed position -> container
+    private PositionTable<List<Container>> containersByChunk;   // chunk column -> its containers
     private Player player;
     private Container openContainer;
+    private Container playerInventory;
+    private ItemDrops itemDrops;
+    private final TransportNetwork transport = new TransportNetwork();
+    
+    // Containers persist per chunk column; a column is read from disk the first time it is touched
+    private static final int SAVE_INTERVAL = 100; // ticks between incremental saves
+    private static final int LOADED = 1;
+    private static final int LOAD_FAILED = 2;
+    private final ContainerStore store = new ContainerStore(Paths.get("saves", "containers"));
+    private final LongIntTable loadedChunks = new LongIntTable(0); // chunk columns -> LOADED or LOAD_FAILED
+    private final LongIntTable changedChunks = new LongIntTable(0); // columns that gained or lost containers -> 1
+    private final PositionTable<List<Container>> waitingPipes = new PositionTable<>(); // unloaded column -> loaded sources piping into it
+    private int ticks;
     
     public ContainMod(Player player) {
         this.player = player;
-        this.containers = new ConcurrentHashMap<>();
+        this.containers = new PositionTable<>();
+        this.containersByChunk = new PositionTable<>();
+        this.playerInventory = new Container(ContainerType.PLAYER_INVENTORY, 0, 0, 0);
+        this.itemDrops = new ItemDrops(World.getInstance().getEntities());
+        World.getInstance().addBlockBreakListener(itemDrops::dropBlock);
+    }
+    
+    // Same packing as LongIntTable.packPosition: 26 bits each for x and z, 12 for y
+    public static long packPosition(int x, int y, int z) {
+        return LongIntTable.packPosition(x, y, z);
+    }
+    
+    public static int unpackX(long key) { return (int) (key >> 38); }
+    public static int unpackY(long key) { return (int) (key << 52 >> 52); }
+    public static int unpackZ(long key) { return (int) (key << 26 >> 38); }
+    
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return LongIntTable.columnKey(chunkX, chunkZ);
+    }
+    
+    /*
+      Packed position -> value map. Lookups go through the shared LongIntTable, which maps
+      each key to a slot in a value array (freed slots are reused), so no key is ever boxed.
+      Not thread-safe; containers are only touched from the game thread.
+     */
+    public static class PositionTable<V> {
+        private final LongIntTable index = new LongIntTable(-1);
+        private Object[] values = new Object[16];
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+        private int usedSlots;
+        
+        @SuppressWarnings("unchecked")
+        public V get(long key) {
+            int slot = index.get(key);
+            return slot < 0 ? null : (V) values[slot];
+        }
+        
+        // Returns the value previously stored under key, or null
+        @SuppressWarnings("unchecked")
+        public V put(long key, V value) {
+            if (value == null) {
+                return remove(key); // a null value would read back as absent anyway
+            }
+            int slot = index.get(key);
+            if (slot >= 0) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                if (usedSlots == values.length) {
+                    values = Arrays.copyOf(values, usedSlots * 2);
+                }
+                slot = usedSlots++;
+            }
+            values[slot] = value;
+            index.put(key, slot);
+            return null;
+        }
+        
+        @SuppressWarnings("unchecked")
+        public V remove(long key) {
+            int slot = index.remove(key);
+            if (slot < 0) return null;
+            
+            V removed = (V) values[slot];
+            values[slot] = null;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            return removed;
+        }
+        
+        @SuppressWarnings("unchecked")
+        public void forEach(java.util.function.Consumer<V> action) {
+            for (int slot = 0; slot < usedSlots; slot++) {
+                if (values[slot] != null) action.accept((V) values[slot]);
+            }
+        }
+        
+        public int size() { return index.size(); }
+    }
+    
+    /*
+      Container inventories on disk, one file per chunk column next to the world's chunk data
+      (saves/containers/c.<chunkX>.<chunkZ>.bin), so a chunk's containers load and save
+      together. Layout (big-endian):
+        int magic, byte version, int containerCount
+        per container: byte localX | localZ << 4, short y, byte ContainerType ordinal,
+                       byte occupiedSlots, then per occupied slot: byte slot, short itemId, byte count,
+                       then (version 2) byte pipeCount and a packed target position per pipe
+      Version 1 files, written before pipes were saved, still load.
+     */
+    public static class ContainerStore {
+        private static final int MAGIC = 0x434F4E54; // "CONT"
+        private static final int VERSION = 2;
+        
+        private final Path directory;
+        
+        public ContainerStore(Path directory) {
+            this.directory = directory;
+        }
+        
+        public Path fileFor(int chunkX, int chunkZ) {
+            return directory.resolve("c." + chunkX + "." + chunkZ + ".bin");
+        }
+        
+        // Containers saved for a chunk column; empty if it was never saved
+        public List<Container> load(int chunkX, int chunkZ) throws IOException {
+            Path file = fileFor(chunkX, chunkZ);
+            if (!Files.exists(file)) {
+                return new ArrayList<>();
+            }
+            
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not a container file: " + file);
+                }
+                int version = in.readUnsignedByte();
+                if (version < 1 || version > VERSION) {
+                    throw new IOException("Unsupported container file version " + version);
+                }
+                
+                ContainerType[] types = ContainerType.values();
+                int count = in.readInt();
+                List<Container> loaded = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int local = in.readUnsignedByte();
+                    int y = in.readShort();
+                    int typeOrdinal = in.readUnsignedByte();
+                    if (typeOrdinal >= types.length) {
+                        throw new IOException("Corrupt container file " + file + ": type " + typeOrdinal);
+                    }
+                    Container container = new Container(types[typeOrdinal],
+                        (chunkX << 4) + (local & 15), y, (chunkZ << 4) + (local >>> 4));
+                    
+                    int occupied = in.readUnsignedByte();
+                    for (int s = 0; s < occupied; s++) {
+                        int slot = in.readUnsignedByte();
+                        int itemId = in.readUnsignedShort();
+                        int itemCount = in.readUnsignedByte();
+                        if (slot >= container.getSize()) {
+                            throw new IOException("Corrupt container file " + file + ": slot " + slot);
+                        }
+                        container.loadSlot(slot, itemId, itemCount);
+                    }
+                    if (version >= 2) {
+                        int pipes = in.readUnsignedByte();
+                        for (int p = 0; p < pipes; p++) {
+                            container.addPipeTarget(in.readLong());
+                        }
+                    }
+                    container.markSaved();
+                    loaded.add(container);
+                }
+                return loaded;
+            }
+        }
+        
+        // Rewrites the chunk column's file, or deletes it when no containers are left
+        public void save(int chunkX, int chunkZ, List<Container> containers) throws IOException {
+            Path file = fileFor(chunkX, chunkZ);
+            if (containers.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            
+            Files.createDirectories(directory);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeInt(containers.size());
+                for (Container container : containers) {
+                    out.writeByte((container.getX() & 15) | (container.getZ() & 15) << 4);
+                    out.writeShort(container.getY());
+                    out.writeByte(container.getType().ordinal());
+                    
+                    int occupied = 0;
+                    for (int slot = container.nextOccupiedSlot(0); slot >= 0; slot = container.nextOccupiedSlot(slot + 1)) {
+                        occupied++;
+                    }
+                    out.writeByte(occupied);
+                    for (int slot = container.nextOccupiedSlot(0); slot >= 0; slot = container.nextOccupiedSlot(slot + 1)) {
+                        out.writeByte(slot);
+                        out.writeShort(container.getItemId(slot));
+                        out.writeByte(container.getCount(slot));
+                    }
+                    out.writeByte(container.getPipeTargetCount());
+                    for (int p = 0; p < container.getPipeTargetCount(); p++) {
+                        out.writeLong(container.getPipeTarget(p));
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Container container : containers) {
+                container.markSaved();
+            }
+        }
     }
     
+    /*
+      Slots are two parallel int arrays (item id, count). Free slots are a bitset and each
+      item id keeps a list of its slots that still have room, with each slot's position in
+      that list, so insert, remove and count never scan the whole container.
+     */
     public static class Container {
-        private String containerId;
+        private final long positionKey;
         private ContainerType type;
         private int size;
-        private ItemStack[] items;
+        private final int[] slotItems;  // ItemType id, 0 (EMPTY) for a free slot
+        private final int[] slotCounts;
+        private final BitSet freeSlots;
+        private final int[][] partialSlots;  // item id -> slots holding it that are not full
+        private final int[] partialCounts;
+        private final int[] partialIndex;    // slot -> position in its item's partialSlots, or -1
+        private final int[] totals;          // item id -> total held
         private int x, y, z; // World position
         private boolean isOpen;
+        private TransportNetwork network; // set while the container has pipes
+        private int networkNode = -1;
+        private long[] pipeTargets = new long[0]; // packed positions this container feeds; saved with it
+        private int pipeTargetCount;
+        private boolean dirty;            // changed since last saved
         
         public Container(ContainerType type, int x, int y, int z) {
             this.type = type;
             this.x = x;
             this.y = y;
             this.z = z;
-            this.containerId = x + "," + y + "," + z;
+            this.positionKey = packPosition(x, y, z);
             this.size = type.getDefaultSize();
-            this.items = new ItemStack[size];
-            initializeEmptySlots();
+            this.slotItems = new int[size];
+            this.slotCounts = new int[size];
+            this.freeSlots = new BitSet(size);
+            this.freeSlots.set(0, size);
+            this.partialSlots = new int[ItemType.count()][];
+            this.partialCounts = new int[ItemType.count()];
+            this.partialIndex = new int[size];
+            this.totals = new int[ItemType.count()];
+            Arrays.fill(partialIndex, -1);
         }
         
-        private void initializeEmptySlots() {
-            for (int i = 0; i < size; i++) {
-                items[i] = new ItemStack(ItemType.EMPTY, 0);
-            }
+        public boolean addItem(ItemType itemType, int quantity) {
+            return insertItem(itemType, quantity) == 0;
         }
         
-        public boolean addItem(ItemType itemType, int quantity) {
-            // First try to stack with existing items
-            for (int i = 0; i < size; i++) {
-                if (items[i].getItemType() == itemType && items[i].getQuantity() < items[i].getMaxStackSize()) {
-                    int spaceLeft = items[i].getMaxStackSize() - items[i].getQuantity();
-                    int toAdd = Math.min(quantity, spaceLeft);
-                    items[i].setQuantity(items[i].getQuantity() + toAdd);
-                    quantity -= toAdd;
-                    
-                    if (quantity <= 0) return true;
-                }
+        // Same as addItem, but returns how many items did not fit
+        public int insertItem(ItemType itemType, int quantity) {
+            int itemId = itemType.getId();
+            int maxStack = itemType.getMaxStackSize();
+            if (itemType == ItemType.EMPTY || quantity <= 0) {
+                return Math.max(0, quantity);
+            }
+            
+            // First top up stacks that still have room
+            while (quantity > 0 && partialCounts[itemId] > 0) {
+                int slot = partialSlots[itemId][partialCounts[itemId] - 1];
+                int toAdd = Math.min(quantity, maxStack - slotCounts[slot]);
+                setSlot(slot, itemId, slotCounts[slot] + toAdd);
+                quantity -= toAdd;
             }
             
             // Then try empty slots
-            for (int i = 0; i < size; i++) {
-                if (items[i].getItemType() == ItemType.EMPTY) {
-                    int toAdd = Math.min(quantity, itemType.getMaxStackSize());
-                    items[i] = new ItemStack(itemType, toAdd);
-                    quantity -= toAdd;
-                    
-                    if (quantity <= 0) return true;
-                }
+            while (quantity > 0) {
+                int slot = freeSlots.nextSetBit(0);
+                if (slot < 0 || slot >= size) break;
+                int toAdd = Math.min(quantity, maxStack);
+                setSlot(slot, itemId, toAdd);
+                quantity -= toAdd;
             }
             
-            return quantity <= 0;
+            return quantity;
+        }
+        
+        // Removes up to quantity items from a slot and returns how many were taken
+        public int takeItem(int slot, int quantity) {
+            if (slot < 0 || slot >= size || slotItems[slot] == ItemType.EMPTY.getId() || quantity <= 0) {
+                return 0;
+            }
+            int taken = Math.min(quantity, slotCounts[slot]);
+            setSlot(slot, slotItems[slot], slotCounts[slot] - taken);
+            return taken;
         }
         
+        // Allocates only when something was removed; ItemStack.EMPTY otherwise
         public ItemStack removeItem(int slot, int quantity) {
-            if (slot < 0 || slot >= size || items[slot].getItemType() == ItemType.EMPTY) {
-                return new ItemStack(ItemType.EMPTY, 0);
+            if (!isValidSlot(slot) || slotItems[slot] == ItemType.EMPTY.getId() || quantity <= 0) {
+                return ItemStack.EMPTY;
             }
-            
-            ItemStack stack = items[slot];
-            int toRemove = Math.min(quantity, stack.getQuantity());
-            ItemStack removed = new ItemStack(stack.getItemType(), toRemove);
-            
-            stack.setQuantity(stack.getQuantity() - toRemove);
-            if (stack.getQuantity() <= 0) {
-                items[slot] = new ItemStack(ItemType.EMPTY, 0);
+            return removeItem(slot, quantity, new ItemStack(ItemType.EMPTY, 0));
+        }
+        
+        // Allocation-free variant: fills and returns the caller's stack
+        public ItemStack removeItem(int slot, int quantity, ItemStack into) {
+            if (into == ItemStack.EMPTY) {
+                throw new IllegalArgumentException("Cannot fill the shared empty stack");
             }
-            
-            return removed;
+            ItemType itemType = isValidSlot(slot) ? getItemType(slot) : ItemType.EMPTY;
+            into.set(itemType, takeItem(slot, quantity));
+            return into;
+        }
+        
+        public boolean isValidSlot(int slot) {
+            return slot >= 0 && slot < size;
         }
         
         public void swapSlots(int slot1, int slot2) {
             if (slot1 >= 0 && slot1 < size && slot2 >= 0 && slot2 < size) {
-                ItemStack temp = items[slot1];
-                items[slot1] = items[slot2];
-                items[slot2] = temp;
+                int item1 = slotItems[slot1], count1 = slotCounts[slot1];
+                setSlot(slot1, slotItems[slot2], slotCounts[slot2]);
+                setSlot(slot2, item1, count1);
             }
         }
         
+        /*
+          The one place slot contents change; keeps the free bitset, partial-stack lists and
+          totals in step. A count of 0 empties the slot.
+         */
+        private void setSlot(int slot, int itemId, int count) {
+            int oldItem = slotItems[slot];
+            if (oldItem != ItemType.EMPTY.getId()) {
+                totals[oldItem] -= slotCounts[slot];
+                removePartial(oldItem, slot);
+            }
+            
+            if (count <= 0 || itemId == ItemType.EMPTY.getId()) {
+                slotItems[slot] = ItemType.EMPTY.getId();
+                slotCounts[slot] = 0;
+                freeSlots.set(slot);
+            } else {
+                slotItems[slot] = itemId;
+                slotCounts[slot] = count;
+                freeSlots.clear(slot);
+                totals[itemId] += count;
+                if (count < ItemType.fromId(itemId).getMaxStackSize()) {
+                    addPartial(itemId, slot);
+                }
+            }
+            
+            dirty = true;
+            if (network != null) {
+                network.containerChanged(networkNode);
+            }
+        }
+        
+        // Restores a slot from storage
+        void loadSlot(int slot, int itemId, int count) {
+            setSlot(slot, itemId, count);
+        }
+        
+        void markSaved() { dirty = false; }
+        public boolean isDirty() { return dirty; }
+        
+        // Pipe targets are the saved form of the pipes; the TransportNetwork holds the live links
+        // False if the save format's limit of 255 pipes per container is reached
+        boolean addPipeTarget(long target) {
+            for (int i = 0; i < pipeTargetCount; i++) {
+                if (pipeTargets[i] == target) return true;
+            }
+            if (pipeTargetCount == 255) {
+                return false;
+            }
+            if (pipeTargetCount == pipeTargets.length) {
+                pipeTargets = Arrays.copyOf(pipeTargets, Math.max(4, pipeTargetCount * 2));
+            }
+            pipeTargets[pipeTargetCount++] = target;
+            dirty = true;
+            return true;
+        }
+        
+        void removePipeTarget(long target) {
+            for (int i = 0; i < pipeTargetCount; i++) {
+                if (pipeTargets[i] == target) {
+                    pipeTargets[i] = pipeTargets[--pipeTargetCount];
+                    dirty = true;
+                    return;
+                }
+            }
+        }
+        
+        public int getPipeTargetCount() { return pipeTargetCount; }
+        public long getPipeTarget(int index) { return pipeTargets[index]; }
+        
+        private void addPartial(int itemId, int slot) {
+            int[] slots = partialSlots[itemId];
+            if (slots == null) {
+                slots = partialSlots[itemId] = new int[size];
+            }
+            partialIndex[slot] = partialCounts[itemId];
+            slots[partialCounts[itemId]++] = slot;
+        }
+        
+        // Swap-removes the slot from its item's partial list
+        private void removePartial(int itemId, int slot) {
+            int index = partialIndex[slot];
+            if (index < 0) return;
+            
+            int last = partialSlots[itemId][--partialCounts[itemId]];
+            partialSlots[itemId][index] = last;
+            partialIndex[last] = index;
+            partialIndex[slot] = -1;
+        }
+        
+        public int countItem(ItemType itemType) {
+            return totals[itemType.getId()];
+        }
+        
+        // First non-empty slot at or after from, or -1
+        public int nextOccupiedSlot(int from) {
+            int slot = freeSlots.nextClearBit(from);
+            return slot < size ? slot : -1;
+        }
+        
+        // True if at least one more of the item fits
+        public boolean canAccept(ItemType itemType) {
+            return partialCounts[itemType.getId()] > 0 || hasFreeSlot();
+        }
+        
+        public boolean hasFreeSlot() {
+            int slot = freeSlots.nextSetBit(0);
+            return slot >= 0 && slot < size;
+        }
+        
         // Getters
-        public String getContainerId() { return containerId; }
+        public String getContainerId() { return x + "," + y + "," + z; }
+        public long getPositionKey() { return positionKey; }
         public ContainerType getType() { return type; }
         public int getSize() { return size; }
-        public ItemStack[] getItems() { return items; }
+        public ItemType getItemType(int slot) { return ItemType.fromId(slotItems[slot]); }
+        public int getItemId(int slot) { return slotItems[slot]; }
+        public int getCount(int slot) { return slotCounts[slot]; }
         public int getX() { return x; }
         public int getY() { return y; }
         public int getZ() { return z; }
         public boolean isOpen() { return isOpen; }
         public void setOpen(boolean open) { isOpen = open; }
+        
+        // Snapshot of the slots as ItemStacks, for display; changing them does not affect the container
+        public ItemStack[] getItems() {
+            ItemStack[] items = new ItemStack[size];
+            for (int i = 0; i < size; i++) {
+                items[i] = new ItemStack(getItemType(i), slotCounts[i]);
+            }
+            return items;
+        }
     }
     
     public enum ContainerType {
@@ -123,6 +497,9 @@ public static class ContainMod {
     }
     
     public static class ItemStack {
+        // Shared empty stack; EMPTY's max stack size is 0, so setQuantity cannot change it
+        public static final ItemStack EMPTY = new ItemStack(ItemType.EMPTY, 0);
+        
         private ItemType itemType;
         private int quantity;
         
@@ -141,6 +518,12 @@ public static class ContainMod {
         public boolean isEmpty() {
             return itemType == ItemType.EMPTY || quantity <= 0;
         }
+        
+        // For removeItem(slot, quantity, into); never called on EMPTY
+        void set(ItemType itemType, int quantity) {
+            this.itemType = itemType;
+            this.quantity = Math.min(quantity, itemType.getMaxStackSize());
+        }
     }
     
     public enum ItemType {
@@ -155,6 +538,19 @@ public static class ContainMod {
         CHEST_ITEM(8, 1),
         BARREL_ITEM(9, 1);
         
+        private static final ItemType[] BY_ID;
+        
+        static {
+            int maxId = 0;
+            for (ItemType type : values()) {
+                maxId = Math.max(maxId, type.id);
+            }
+            BY_ID = new ItemType[maxId + 1];
+            for (ItemType type : values()) {
+                BY_ID[type.id] = type;
+            }
+        }
+        
         private final int id;
         private final int maxStackSize;
         
@@ -167,15 +563,369 @@ public static class ContainMod {
         public int getMaxStackSize() { return maxStackSize; }
         
         public static ItemType fromId(int id) {
-            for (ItemType type : values()) {
-                if (type.id == id) return type;
+            ItemType type = id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+            return type != null ? type : EMPTY;
+        }
+        
+        // Size of an array indexed by item id
+        public static int count() {
+            return BY_ID.length;
+        }
+    }
+    
+    /*
+      Dropped items live in the world's EntityManager as ITEM entities whose data word packs
+      (item id << 8 | quantity). Breaks are queued and flushed once per tick, topping up stacks
+      already lying nearby before spawning new ones, so mining a whole area yields a handful
+      of full stacks rather than one entity per block.
+     */
+    public static class ItemDrops {
+        private static final float MERGE_RADIUS = 1.5f;
+        private static final float BATCH_RADIUS = 3.0f;  // fresh drops join stacks from further away
+        private static final float PICKUP_RADIUS = 1.5f;
+        private static final int MERGE_INTERVAL = 10; // ticks between ground merge passes
+        private static final float ITEM_SIZE = 0.25f;
+        
+        private final EntityManager entities;
+        private final Random random = new Random();
+        
+        // Breaks queued since the last tick
+        private int[] pendingItems = new int[64];
+        private float[] pendingPositions = new float[64 * 3];
+        private int pendingCount;
+        
+        private int ticks;
+        private long lastMergeNanos, lastPickupNanos;
+        private int lastMerged, lastPickedUp, lastSpawned;
+        
+        public ItemDrops(EntityManager entities) {
+            this.entities = entities;
+        }
+        
+        public static ItemType itemForBlock(int blockTypeId) {
+            return switch (BlockType.fromId(blockTypeId)) {
+                case GRASS, DIRT -> ItemType.DIRT_BLOCK;
+                case STONE -> ItemType.COBBLESTONE;
+                case WOOD -> ItemType.WOOD_BLOCK;
+                default -> ItemType.EMPTY;
+            };
+        }
+        
+        // World.BlockBreakListener; may be called from any thread that edits the world
+        public synchronized void dropBlock(int x, int y, int z, int blockTypeId) {
+            ItemType item = itemForBlock(blockTypeId);
+            if (item != ItemType.EMPTY) {
+                drop(item, 1, x + 0.5f, y + 0.5f, z + 0.5f);
+            }
+        }
+        
+        // Large drops are queued as full stacks, so no queued entry outgrows the packed quantity
+        public synchronized void drop(ItemType item, int quantity, float x, float y, float z) {
+            if (item == ItemType.EMPTY || quantity <= 0) return;
+            while (quantity > 0) {
+                int stack = Math.min(quantity, item.getMaxStackSize());
+                if (pendingCount == pendingItems.length) {
+                    pendingItems = Arrays.copyOf(pendingItems, pendingCount * 2);
+                    pendingPositions = Arrays.copyOf(pendingPositions, pendingCount * 2 * 3);
+                }
+                pendingItems[pendingCount] = pack(item, stack);
+                pendingPositions[pendingCount * 3] = x;
+                pendingPositions[pendingCount * 3 + 1] = y;
+                pendingPositions[pendingCount * 3 + 2] = z;
+                pendingCount++;
+                quantity -= stack;
+            }
+        }
+        
+        /**
+         * Flushes queued drops, merges resting stacks every MERGE_INTERVAL ticks and moves
+         * stacks within reach of the player into their inventory. Call once per game tick.
+         */
+        public void tick(Player player, Container inventory) {
+            ticks++;
+            long start = System.nanoTime();
+            lastMerged = 0;
+            lastSpawned = 0;
+            flushPending();
+            if (ticks % MERGE_INTERVAL == 0) {
+                entities.forEachOfKind(EntityKind.ITEM, this::mergeInto);
+            }
+            long merged = System.nanoTime();
+            
+            lastPickedUp = 0;
+            Vector3f position = player.getPosition();
+            entities.forEachInRange(position.x, position.y, position.z, PICKUP_RADIUS, id -> {
+                int packed = entities.getData(id);
+                if (entities.getKind(id) != EntityKind.ITEM || quantityOf(packed) == 0) return;
+                
+                int leftover = inventory.insertItem(itemOf(packed), quantityOf(packed));
+                lastPickedUp += quantityOf(packed) - leftover;
+                entities.setData(id, pack(itemOf(packed), leftover));
+                if (leftover == 0) entities.remove(id);
+            });
+            
+            lastMergeNanos = merged - start;
+            lastPickupNanos = System.nanoTime() - merged;
+        }
+        
+        private synchronized void flushPending() {
+            for (int i = 0; i < pendingCount; i++) {
+                ItemType item = itemOf(pendingItems[i]);
+                int quantity = quantityOf(pendingItems[i]);
+                float x = pendingPositions[i * 3], y = pendingPositions[i * 3 + 1], z = pendingPositions[i * 3 + 2];
+                
+                quantity = topUpNearby(item, quantity, x, y, z, BATCH_RADIUS, EntityManager.NO_ENTITY);
+                while (quantity > 0) {
+                    int stack = Math.min(quantity, item.getMaxStackSize());
+                    int id = entities.spawn(EntityKind.ITEM, x, y, z, ITEM_SIZE, ITEM_SIZE);
+                    entities.setData(id, pack(item, stack));
+                    entities.setVelocity(id, random.nextFloat() * 2 - 1, 3, random.nextFloat() * 2 - 1);
+                    quantity -= stack;
+                    lastSpawned++;
+                }
+            }
+            pendingCount = 0;
+        }
+        
+        // Moves as much as fits into stacks of the same item within radius; returns what is left
+        private int topUpNearby(ItemType item, int quantity, float x, float y, float z, float radius, int exclude) {
+            int[] remaining = {quantity};
+            entities.forEachInRange(x, y, z, radius, id -> {
+                if (remaining[0] == 0 || id == exclude || entities.getKind(id) != EntityKind.ITEM) return;
+                int packed = entities.getData(id);
+                int held = quantityOf(packed);
+                if (held == 0 || itemOf(packed) != item || held >= item.getMaxStackSize()) return;
+                
+                int moved = Math.min(remaining[0], item.getMaxStackSize() - held);
+                entities.setData(id, pack(item, held + moved));
+                remaining[0] -= moved;
+                lastMerged += moved;
+            });
+            return remaining[0];
+        }
+        
+        // Pours one stack into its neighbours; emptied stacks are removed at the end of the next entity tick
+        private void mergeInto(int id) {
+            int packed = entities.getData(id);
+            if (quantityOf(packed) == 0 || !entities.isOnGround(id)) return;
+            
+            int left = topUpNearby(itemOf(packed), quantityOf(packed),
+                entities.getX(id), entities.getY(id), entities.getZ(id), MERGE_RADIUS, id);
+            entities.setData(id, pack(itemOf(packed), left));
+            if (left == 0) entities.remove(id);
+        }
+        
+        // Quantity takes the low 8 bits; anything wider would bleed into the item id
+        private static int pack(ItemType item, int quantity) {
+            if (quantity < 0 || quantity > 0xFF) {
+                throw new IllegalArgumentException("Stack of " + quantity + " " + item + " does not fit in a packed drop");
+            }
+            return item.getId() << 8 | quantity;
+        }
+        
+        private static ItemType itemOf(int packed) {
+            return ItemType.fromId(packed >>> 8);
+        }
+        
+        private static int quantityOf(int packed) {
+            return packed & 0xFF;
+        }
+        
+        // Per-tick cost of the merge (flush + ground merge) and pickup passes
+        public double getLastMergeMillis() { return lastMergeNanos / 1_000_000.0; }
+        public double getLastPickupMillis() { return lastPickupNanos / 1_000_000.0; }
+        public int getLastMerged() { return lastMerged; }
+        public int getLastPickedUp() { return lastPickedUp; }
+        public int getLastSpawned() { return lastSpawned; }
+    }
+    
+    /*
+      Pipe network between placed containers. Each pipe moves up to ITEMS_PER_PIPE items per
+      tick from its source to its destination. Containers report inventory changes to the
+      network, which wakes that node and the nodes feeding it; a tick only visits woken nodes,
+      so idle storage costs nothing however many containers are connected.
+     */
+    public static class TransportNetwork {
+        public static final int ITEMS_PER_PIPE = 8;
+        public static final int MAX_NODES_PER_TICK = 4096; // the rest carry over to the next tick
+        
+        private final List<Container> nodes = new ArrayList<>();
+        private int[][] outgoing = new int[64][];
+        private int[] outgoingCount = new int[64];
+        private int[][] incoming = new int[64][];
+        private int[] incomingCount = new int[64];
+        private int[] freeNodes = new int[16]; // indexes of removed nodes, reused before the arrays grow
+        private int freeCount;
+        
+        // Nodes to visit next tick, in wake order; queued mirrors membership
+        private int[] pending = new int[64];
+        private int pendingCount;
+        private final BitSet queued = new BitSet();
+        private int[] batch = new int[64];
+        
+        private int lastVisited, lastMoved;
+        private long lastTickNanos;
+        
+        public int addNode(Container container) {
+            if (container.network == this) {
+                return container.networkNode;
+            }
+            if (freeCount > 0) {
+                int node = freeNodes[--freeCount];
+                nodes.set(node, container);
+                container.network = this;
+                container.networkNode = node;
+                return node;
+            }
+            int node = nodes.size();
+            nodes.add(container);
+            if (node == outgoingCount.length) {
+                outgoing = Arrays.copyOf(outgoing, node * 2);
+                outgoingCount = Arrays.copyOf(outgoingCount, node * 2);
+                incoming = Arrays.copyOf(incoming, node * 2);
+                incomingCount = Arrays.copyOf(incomingCount, node * 2);
+            }
+            container.network = this;
+            container.networkNode = node;
+            return node;
+        }
+        
+        public void connect(Container from, Container to) {
+            int source = addNode(from);
+            int destination = addNode(to);
+            for (int i = 0; i < outgoingCount[source]; i++) {
+                if (outgoing[source][i] == destination) return;
+            }
+            outgoing[source] = append(outgoing[source], outgoingCount[source]++, destination);
+            incoming[destination] = append(incoming[destination], incomingCount[destination]++, source);
+            wake(source);
+        }
+        
+        // Drops every pipe to and from the container, e.g. when it is broken or replaced
+        public void remove(Container container) {
+            if (container.network != this) return;
+            int node = container.networkNode;
+            for (int i = 0; i < outgoingCount[node]; i++) {
+                unlink(incoming, incomingCount, outgoing[node][i], node);
+            }
+            for (int i = 0; i < incomingCount[node]; i++) {
+                unlink(outgoing, outgoingCount, incoming[node][i], node);
+            }
+            outgoingCount[node] = 0;
+            incomingCount[node] = 0;
+            nodes.set(node, null);
+            if (freeCount == freeNodes.length) {
+                freeNodes = Arrays.copyOf(freeNodes, freeCount * 2);
+            }
+            freeNodes[freeCount++] = node;
+            container.network = null;
+            container.networkNode = -1;
+        }
+        
+        private static void unlink(int[][] lists, int[] counts, int owner, int target) {
+            for (int i = 0; i < counts[owner]; i++) {
+                if (lists[owner][i] == target) {
+                    lists[owner][i] = lists[owner][--counts[owner]];
+                    return;
+                }
+            }
+        }
+        
+        private static int[] append(int[] list, int index, int value) {
+            if (list == null) {
+                list = new int[4];
+            } else if (index == list.length) {
+                list = Arrays.copyOf(list, index * 2);
+            }
+            list[index] = value;
+            return list;
+        }
+        
+        // Called by Container on every slot change: it may have something to send, and the
+        // nodes feeding it may now have room to send into it
+        void containerChanged(int node) {
+            wake(node);
+            for (int i = 0; i < incomingCount[node]; i++) {
+                wake(incoming[node][i]);
+            }
+        }
+        
+        private void wake(int node) {
+            if (queued.get(node) || outgoingCount[node] == 0) return;
+            queued.set(node);
+            if (pendingCount == pending.length) {
+                pending = Arrays.copyOf(pending, pendingCount * 2);
+            }
+            pending[pendingCount++] = node;
+        }
+        
+        /**
+         * Runs one batch: every woken node (up to MAX_NODES_PER_TICK) pushes along each of its
+         * pipes. A node that moves nothing goes back to sleep until it or a destination changes.
+         */
+        public void tick(ContainMod mod) {
+            long start = System.nanoTime();
+            int count = Math.min(pendingCount, MAX_NODES_PER_TICK);
+            if (batch.length < count) {
+                batch = new int[pending.length];
+            }
+            System.arraycopy(pending, 0, batch, 0, count);
+            System.arraycopy(pending, count, pending, 0, pendingCount - count);
+            pendingCount -= count;
+            for (int i = 0; i < count; i++) {
+                queued.clear(batch[i]);
+            }
+            
+            lastMoved = 0;
+            for (int i = 0; i < count; i++) {
+                int node = batch[i];
+                Container source = nodes.get(node);
+                if (source == null) continue;
+                for (int p = 0; p < outgoingCount[node]; p++) {
+                    lastMoved += push(mod, source, nodes.get(outgoing[node][p]));
+                }
+            }
+            lastVisited = count;
+            lastTickNanos = System.nanoTime() - start;
+        }
+        
+        private int push(ContainMod mod, Container source, Container destination) {
+            int moved = 0;
+            for (int slot = source.nextOccupiedSlot(0); slot >= 0 && moved < ITEMS_PER_PIPE;
+                 slot = source.nextOccupiedSlot(slot + 1)) {
+                // Checked first so a full destination never bounces items back into the source,
+                // which would count as a change and keep the node awake
+                if (destination.canAccept(source.getItemType(slot))) {
+                    moved += mod.transferItem(source, slot, destination, -1, ITEMS_PER_PIPE - moved);
+                }
+            }
+            return moved;
+        }
+        
+        // Visits the containers with a pipe into this one
+        public void forEachFeeder(Container container, java.util.function.Consumer<Container> action) {
+            if (container.network != this) return;
+            int node = container.networkNode;
+            for (int i = 0; i < incomingCount[node]; i++) {
+                action.accept(nodes.get(incoming[node][i]));
             }
-            return EMPTY;
         }
+        
+        public int getNodeCount() { return nodes.size() - freeCount; }
+        public int getPendingCount() { return pendingCount; }
+        public int getLastVisited() { return lastVisited; }
+        public int getLastMoved() { return lastMoved; }
+        public double getLastTickMillis() { return lastTickNanos / 1_000_000.0; }
     }
     
     public void update(InputHandler input, World world) {
         handleContainerInteraction(input, world);
+        itemDrops.tick(player, playerInventory);
+        transport.tick(this);
+        
+        if (++ticks % SAVE_INTERVAL == 0) {
+            saveChanged();
+        }
     }
     
     private void handleContainerInteraction(InputHandler input, World world) {
@@ -184,7 +934,7 @@ public static class ContainMod {
             RaycastHit hit = player.getRaycastHit();
             if (hit != null) {
                 Block block = hit.getBlock();
-                if (isContainerBlock(block.getType())) {
+                if (isContainerBlock(block.getTypeId())) {
                     openContainer(hit.getBlockX(), hit.getBlockY(), hit.getBlockZ());
                 }
             }
@@ -197,9 +947,12 @@ public static class ContainMod {
     }
     
     public void openContainer(int x, int y, int z) {
-        String containerId = x + "," + y + "," + z;
-        openContainer = containers.computeIfAbsent(containerId, 
-            k -> new Container(ContainerType.CHEST, x, y, z));
+        ensureChunkLoaded(x >> 4, z >> 4);
+        openContainer = containers.get(packPosition(x, y, z));
+        if (openContainer == null) {
+            openContainer = new Container(ContainerType.CHEST, x, y, z);
+            addContainer(openContainer);
+        }
         openContainer.setOpen(true);
         
         System.out.println("Opened " + openContainer.getType().getDisplayName() + " at " + x + "," + y + "," + z);
@@ -215,9 +968,8 @@ public static class ContainMod {
     }
     
     public void placeContainer(ContainerType type, int x, int y, int z) {
-        String containerId = x + "," + y + "," + z;
-        Container container = new Container(type, x, y, z);
-        containers.put(containerId, container);
+        removeContainer(x, y, z);
+        addContainer(new Container(type, x, y, z));
         
         // Convert block to container block
         BlockType blockType = getBlockTypeForContainer(type);
@@ -226,8 +978,244 @@ public static class ContainMod {
         System.out.println("Placed " + type.getDisplayName() + " at " + x + "," + y + "," + z);
     }
     
-    private boolean isContainerBlock(BlockType blockType) {
-        return blockType == BlockType.WOOD || blockType == BlockType.STONE; // Example container blocks
+    private void addContainer(Container container) {
+        ensureChunkLoaded(container.getX() >> 4, container.getZ() >> 4);
+        indexContainer(container);
+        changedChunks.put(chunkKey(container.getX() >> 4, container.getZ() >> 4), 1);
+    }
+    
+    private void indexContainer(Container container) {
+        containers.put(container.getPositionKey(), container);
+        long chunk = chunkKey(container.getX() >> 4, container.getZ() >> 4);
+        List<Container> inChunk = containersByChunk.get(chunk);
+        if (inChunk == null) {
+            inChunk = new ArrayList<>();
+            containersByChunk.put(chunk, inChunk);
+        }
+        inChunk.add(container);
+    }
+    
+    // Forgets the container at a position (its pipes included) and returns it, or null
+    public Container removeContainer(int x, int y, int z) {
+        ensureChunkLoaded(x >> 4, z >> 4);
+        Container removed = containers.remove(packPosition(x, y, z));
+        if (removed == null) {
+            return null;
+        }
+        long key = removed.getPositionKey();
+        transport.forEachFeeder(removed, feeder -> feeder.removePipeTarget(key));
+        stopWaiting(removed);
+        transport.remove(removed);
+        if (removed == openContainer) {
+            closeContainer();
+        }
+        long chunk = chunkKey(x >> 4, z >> 4);
+        List<Container> inChunk = containersByChunk.get(chunk);
+        inChunk.remove(removed);
+        if (inChunk.isEmpty()) {
+            containersByChunk.remove(chunk);
+        }
+        changedChunks.put(chunk, 1);
+        return removed;
+    }
+    
+    public Container getContainer(int x, int y, int z) {
+        ensureChunkLoaded(x >> 4, z >> 4);
+        return containers.get(packPosition(x, y, z));
+    }
+    
+    // Containers in one chunk column; the returned list is live, do not modify it
+    public List<Container> getContainersInChunk(int chunkX, int chunkZ) {
+        ensureChunkLoaded(chunkX, chunkZ);
+        List<Container> inChunk = containersByChunk.get(chunkKey(chunkX, chunkZ));
+        return inChunk != null ? inChunk : Collections.emptyList();
+    }
+    
+    /**
+     * Saves a chunk column's containers if they changed, then drops them from the indexes
+     * and returns them, for use when the chunk itself is evicted.
+     */
+    public List<Container> unloadChunk(int chunkX, int chunkZ) {
+        long chunk = chunkKey(chunkX, chunkZ);
+        if (loadedChunks.remove(chunk) == 0) {
+            return Collections.emptyList();
+        }
+        List<Container> inChunk = containersByChunk.remove(chunk);
+        if (changedChunks.remove(chunk) != 0 || (inChunk != null && anyDirty(inChunk))) {
+            saveChunk(chunkX, chunkZ, inChunk != null ? inChunk : Collections.emptyList());
+        }
+        if (inChunk == null) {
+            return Collections.emptyList();
+        }
+        // Loaded sources piping into this column wait for it to come back
+        for (Container container : inChunk) {
+            transport.forEachFeeder(container, feeder -> {
+                if (chunkKey(feeder.getX() >> 4, feeder.getZ() >> 4) != chunk) {
+                    waitFor(chunk, feeder);
+                }
+            });
+        }
+        for (Container container : inChunk) {
+            stopWaiting(container);
+            containers.remove(container.getPositionKey());
+            transport.remove(container);
+            if (container == openContainer) {
+                closeContainer();
+            }
+        }
+        return inChunk;
+    }
+    
+    // Visits every container within radius blocks of (x, y, z); only overlapping chunk columns are scanned
+    public int forEachContainerInRadius(float x, float y, float z, float radius, java.util.function.Consumer<Container> action) {
+        float radiusSq = radius * radius;
+        int found = 0;
+        for (int cx = (int) Math.floor(x - radius) >> 4; cx <= (int) Math.floor(x + radius) >> 4; cx++) {
+            for (int cz = (int) Math.floor(z - radius) >> 4; cz <= (int) Math.floor(z + radius) >> 4; cz++) {
+                ensureChunkLoaded(cx, cz);
+                List<Container> inChunk = containersByChunk.get(chunkKey(cx, cz));
+                if (inChunk == null) continue;
+                for (int i = 0; i < inChunk.size(); i++) {
+                    Container container = inChunk.get(i);
+                    float dx = container.getX() + 0.5f - x, dy = container.getY() + 0.5f - y, dz = container.getZ() + 0.5f - z;
+                    if (dx * dx + dy * dy + dz * dz <= radiusSq) {
+                        action.accept(container);
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+    
+    public int getContainerCount() {
+        return containers.size();
+    }
+    
+    private void ensureChunkLoaded(int chunkX, int chunkZ) {
+        long chunk = chunkKey(chunkX, chunkZ);
+        if (loadedChunks.containsKey(chunk)) {
+            return;
+        }
+        List<Container> loaded;
+        try {
+            loaded = store.load(chunkX, chunkZ);
+        } catch (IOException e) {
+            // Not retried until the column is unloaded, and never saved, so the file on disk survives
+            loadedChunks.put(chunk, LOAD_FAILED);
+            System.err.println("Could not load containers for chunk " + chunkX + "," + chunkZ + ": " + e.getMessage());
+            return;
+        }
+        loadedChunks.put(chunk, LOADED);
+        for (Container container : loaded) {
+            indexContainer(container);
+        }
+        // Reconnect saved pipes: the loaded containers' own, then those from sources that were waiting on this column
+        for (Container container : loaded) {
+            reconnectPipes(container);
+        }
+        List<Container> waiting = waitingPipes.remove(chunk);
+        if (waiting != null) {
+            for (Container source : waiting) {
+                reconnectPipes(source);
+            }
+        }
+    }
+    
+    // Links a container's saved pipes whose targets are loaded, drops those whose target is
+    // gone, and leaves the rest waiting on their column
+    private void reconnectPipes(Container source) {
+        for (int i = source.getPipeTargetCount() - 1; i >= 0; i--) {
+            long target = source.getPipeTarget(i);
+            long targetChunk = chunkKey(unpackX(target) >> 4, unpackZ(target) >> 4);
+            if (loadedChunks.get(targetChunk) != LOADED) {
+                waitFor(targetChunk, source);
+                continue;
+            }
+            Container destination = containers.get(target);
+            if (destination == null) {
+                source.removePipeTarget(target);
+            } else {
+                transport.connect(source, destination);
+            }
+        }
+    }
+    
+    private void waitFor(long chunk, Container source) {
+        List<Container> waiting = waitingPipes.get(chunk);
+        if (waiting == null) {
+            waiting = new ArrayList<>();
+            waitingPipes.put(chunk, waiting);
+        }
+        if (!waiting.contains(source)) {
+            waiting.add(source);
+        }
+    }
+    
+    // Called when a source leaves memory, so no column keeps a reference to it
+    private void stopWaiting(Container source) {
+        for (int i = 0; i < source.getPipeTargetCount(); i++) {
+            long target = source.getPipeTarget(i);
+            long targetChunk = chunkKey(unpackX(target) >> 4, unpackZ(target) >> 4);
+            List<Container> waiting = waitingPipes.get(targetChunk);
+            if (waiting != null && waiting.remove(source) && waiting.isEmpty()) {
+                waitingPipes.remove(targetChunk);
+            }
+        }
+    }
+    
+    /**
+     * Writes every loaded chunk column whose containers changed since the last save, and no
+     * others. Returns the number of columns written.
+     */
+    public int saveChanged() {
+        int[] written = {0};
+        containersByChunk.forEach(inChunk -> {
+            Container first = inChunk.get(0);
+            long chunk = chunkKey(first.getX() >> 4, first.getZ() >> 4);
+            if (changedChunks.remove(chunk) != 0 | anyDirty(inChunk)) {
+                saveChunk(first.getX() >> 4, first.getZ() >> 4, inChunk);
+                written[0]++;
+            }
+        });
+        // Columns whose last container was removed
+        changedChunks.forEachKey(chunk -> {
+            saveChunk((int) (chunk >> 32), (int) chunk, Collections.emptyList());
+            written[0]++;
+        });
+        changedChunks.clear();
+        return written[0];
+    }
+    
+    // Final save when the game exits; changes since the last timed save would otherwise be lost
+    public void shutdown() {
+        closeContainer();
+        int written = saveChanged();
+        System.out.println("Saved containers for " + written + " chunk columns");
+    }
+    
+    private static boolean anyDirty(List<Container> containers) {
+        for (int i = 0; i < containers.size(); i++) {
+            if (containers.get(i).isDirty()) return true;
+        }
+        return false;
+    }
+    
+    private void saveChunk(int chunkX, int chunkZ, List<Container> inChunk) {
+        if (loadedChunks.get(chunkKey(chunkX, chunkZ)) == LOAD_FAILED) {
+            System.err.println("Not saving containers for chunk " + chunkX + "," + chunkZ + ": its file could not be read");
+            return;
+        }
+        try {
+            store.save(chunkX, chunkZ, inChunk);
+        } catch (IOException e) {
+            System.err.println("Could not save containers for chunk " + chunkX + "," + chunkZ + ": " + e.getMessage());
+        }
+    }
+    
+    // By id, so runtime-registered blocks that fall back to a built-in type don't qualify
+    private boolean isContainerBlock(int blockTypeId) {
+        return blockTypeId == BlockType.WOOD.getId() || blockTypeId == BlockType.STONE.getId(); // Example container blocks
     }
     
     private BlockType getBlockTypeForContainer(ContainerType containerType) {
@@ -242,9 +1230,8 @@ public static class ContainMod {
         // In a real implementation, this would open a GUI window
         System.out.println("=== " + container.getType().getDisplayName() + " Contents ===");
         for (int i = 0; i < container.getSize(); i++) {
-            ItemStack stack = container.getItems()[i];
-            if (!stack.isEmpty()) {
-                System.out.println("Slot " + i + ": " + stack.getItemType() + " x" + stack.getQuantity());
+            if (container.getCount(i) > 0) {
+                System.out.println("Slot " + i + ": " + container.getItemType(i) + " x" + container.getCount(i));
             }
         }
     }
@@ -258,14 +1245,44 @@ public static class ContainMod {
         return openContainer;
     }
     
-    public void transferItem(Container from, int fromSlot, Container to, int toSlot, int quantity) {
-        ItemStack removed = from.removeItem(fromSlot, quantity);
-        if (!removed.isEmpty()) {
-            boolean added = to.addItem(removed.getItemType(), removed.getQuantity());
-            if (!added) {
-                // Couldn't add to destination, return to source
-                from.addItem(removed.getItemType(), removed.getQuantity());
+    public Container getPlayerInventory() {
+        return playerInventory;
+    }
+    
+    public ItemDrops getItemDrops() {
+        return itemDrops;
+    }
+    
+    // Returns how many items actually moved; toSlot is -1 (or any valid slot) and the destination picks where they go
+    public int transferItem(Container from, int fromSlot, Container to, int toSlot, int quantity) {
+        if (!from.isValidSlot(fromSlot) || (toSlot != -1 && !to.isValidSlot(toSlot))) {
+            return 0;
+        }
+        ItemType itemType = from.getItemType(fromSlot);
+        int taken = from.takeItem(fromSlot, quantity);
+        if (taken > 0) {
+            int leftover = to.insertItem(itemType, taken);
+            if (leftover > 0) {
+                // Couldn't add everything to destination, return the rest to source
+                from.insertItem(itemType, leftover);
             }
+            return taken - leftover;
+        }
+        return 0;
+    }
+    
+    // Pipes items from the container at (x1, y1, z1) into the one at (x2, y2, z2)
+    public boolean connectContainers(int x1, int y1, int z1, int x2, int y2, int z2) {
+        Container from = getContainer(x1, y1, z1);
+        Container to = getContainer(x2, y2, z2);
+        if (from == null || to == null || from == to || !from.addPipeTarget(to.getPositionKey())) {
+            return false;
         }
+        transport.connect(from, to);
+        return true;
+    }
+    
+    public TransportNetwork getTransport() {
+        return transport;
     }
 }
@@ -0,0 +1,190 @@
+// SCHEMATIC MOD
+
+/*
+  Schematic mod - Saves axis-aligned regions to compact binary files and pastes them back
+  Works against the column World and CubicChunksMod; both directions stream, so large
+  structures never have to be held in memory
+ */
+public static class SchematicMod {
+    private static final int MAGIC = 0x5343484D; // "SCHM"
+    private static final int VERSION = 1;
+    
+    // Reader/writer hooks so the same code serves World and CubicChunksMod
+    @FunctionalInterface
+    public interface BlockSource {
+        Block getBlock(int worldX, int worldY, int worldZ);
+    }
+    
+    @FunctionalInterface
+    public interface SlabSink {
+        void paste(RegionClipboard slab, int worldX, int worldY, int worldZ);
+    }
+    
+    public static BlockSource sourceOf(World world) {
+        return world::getBlock;
+    }
+    
+    public static BlockSource sourceOf(CubicChunksMod cubicChunks) {
+        return cubicChunks::getBlock;
+    }
+    
+    // World pastes go through the bulk edit path so each slab remeshes its chunks once
+    public static SlabSink sinkOf(World world) {
+        return (slab, x, y, z) -> world.pasteRegion(slab, x, y, z, false).join();
+    }
+    
+    public static SlabSink sinkOf(CubicChunksMod cubicChunks) {
+        return (slab, x, y, z) -> {
+            for (int dy = 0; dy < slab.getHeight(); dy++) {
+                for (int dz = 0; dz < slab.getDepth(); dz++) {
+                    cubicChunks.setBlock(x, y + dy, z + dz, slab.getId(0, dy, dz));
+                }
+            }
+        };
+    }
+    
+    /*
+      File layout (gzip compressed):
+        int magic, byte version, int width, int height, int depth
+        body: runs in x, y, z order, each run is varint paletteIndex + varint length;
+              paletteIndex == current palette size introduces a new entry, followed by varint block id
+     */
+    public static long export(BlockSource source, int x1, int y1, int z1, int x2, int y2, int z2, Path file) throws IOException {
+        int minX = Math.min(x1, x2), minY = Math.min(y1, y2), minZ = Math.min(z1, z2);
+        int width = Math.abs(x2 - x1) + 1, height = Math.abs(y2 - y1) + 1, depth = Math.abs(z2 - z1) + 1;
+        
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(depth);
+            
+            int[] paletteIndex = new int[BlockRegistry.MAX_BLOCK_TYPES];
+            Arrays.fill(paletteIndex, -1);
+            int paletteSize = 0;
+            
+            int runType = -1;
+            long runLength = 0;
+            long runs = 0;
+            
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    for (int z = 0; z < depth; z++) {
+                        Block block = source.getBlock(minX + x, minY + y, minZ + z);
+                        int type = block != null ? block.getTypeId() : BlockRegistry.AIR_ID;
+                        
+                        if (type == runType) {
+                            runLength++;
+                            continue;
+                        }
+                        if (runType >= 0) {
+                            paletteSize = writeRun(out, runType, runLength, paletteIndex, paletteSize);
+                        }
+                        runType = type;
+                        runLength = 1;
+                        runs++;
+                    }
+                }
+            }
+            if (runType >= 0) {
+                writeRun(out, runType, runLength, paletteIndex, paletteSize);
+            }
+            
+            System.out.println("Exported " + width + "x" + height + "x" + depth + " schematic in " + runs + " runs to " + file);
+            return (long) width * height * depth;
+        }
+    }
+    
+    private static int writeRun(DataOutputStream out, int typeId, long length, int[] paletteIndex, int paletteSize) throws IOException {
+        int index = paletteIndex[typeId];
+        if (index < 0) {
+            index = paletteSize++;
+            paletteIndex[typeId] = index;
+            writeVarLong(out, index);
+            writeVarLong(out, typeId);
+        } else {
+            writeVarLong(out, index);
+        }
+        writeVarLong(out, length);
+        return paletteSize;
+    }
+    
+    /**
+     * Streams a schematic back into the world one x-slab at a time, so only a single
+     * height*depth slab is ever resident.
+     */
+    public static long paste(Path file, int originX, int originY, int originZ, SlabSink sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a schematic file: " + file);
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported schematic version " + version);
+            }
+            int width = in.readInt();
+            int height = in.readInt();
+            int depth = in.readInt();
+            
+            int[] palette = new int[BlockRegistry.MAX_BLOCK_TYPES];
+            int paletteSize = 0;
+            RegionClipboard slab = new RegionClipboard(1, height, depth);
+            int runType = BlockRegistry.AIR_ID;
+            long remaining = 0;
+            
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    for (int z = 0; z < depth; z++) {
+                        if (remaining == 0) {
+                            int index = (int) readVarLong(in);
+                            if (index == paletteSize && paletteSize < palette.length) {
+                                int typeId = (int) readVarLong(in);
+                                if (!BlockRegistry.isRegistered(typeId)) {
+                                    throw new IOException("Schematic uses unregistered block id " + typeId);
+                                }
+                                palette[paletteSize++] = typeId;
+                            } else if (index >= paletteSize) {
+                                throw new IOException("Corrupt schematic: palette index " + index);
+                            }
+                            runType = palette[index];
+                            remaining = readVarLong(in);
+                            if (remaining < 1) {
+                                throw new IOException("Corrupt schematic: run length " + remaining);
+                            }
+                        }
+                        slab.setId(0, y, z, runType);
+                        remaining--;
+                    }
+                }
+                sink.paste(slab, originX + x, originY, originZ);
+            }
+            
+            System.out.println("Pasted " + width + "x" + height + "x" + depth + " schematic at " + originX + "," + originY + "," + originZ);
+            return (long) width * height * depth;
+        }
+    }
+    
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= 64) throw new IOException("Corrupt schematic: varint too long");
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,46 @@
+package com.starkindustries.jarvis.voice;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.ByteArrayInputStream;
+import java.util.*;
+
+/**
+ * Capture front end throughput. Runs AudioCapture flat out over synthetic audio (noise with
+ * a one second tone burst every three seconds), then prints its status line - frames/sec
+ * and CPU cost per second of audio - and the first speech segments the VAD cut out.
+ *
+ *   java -cp <classes> com.starkindustries.jarvis.voice.AudioCaptureBench [seconds]
+ */
+public class AudioCaptureBench {
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        byte[] pcm = synthesizeTestAudio(seconds, new Random(7));
+        List<String> found = new ArrayList<>();
+        AudioCapture capture = new AudioCapture(segment -> {
+            found.add(String.format("%.0f-%.0fms", segment.getStartMillis(), segment.getStartMillis() + segment.getDurationMillis()));
+            segment.release();
+        });
+        capture.start(new AudioInputStream(new ByteArrayInputStream(pcm), AudioCapture.FORMAT, pcm.length / 2), false, "benchmark");
+        capture.awaitCompletion();
+        System.out.println(capture.getStatus());
+        System.out.println("Segments: " + found.size() + " (expected " + seconds / 3 + ") "
+            + found.subList(0, Math.min(5, found.size())) + "...");
+    }
+
+    // Background noise with a one second 440 Hz burst every three seconds
+    static byte[] synthesizeTestAudio(int seconds, Random random) {
+        int samples = seconds * 16000;
+        byte[] pcm = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            double t = i / 16000.0;
+            double value = random.nextGaussian() * 60;
+            if (t % 3.0 >= 1.0 && t % 3.0 < 2.0) {
+                value += 8000 * Math.sin(2 * Math.PI * 440 * t);
+            }
+            short sample = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+            pcm[i * 2] = (byte) sample;
+            pcm[i * 2 + 1] = (byte) (sample >> 8);
+        }
+        return pcm;
+    }
+}
@@ -0,0 +1,79 @@
+package com.starkindustries.jarvis.ai;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Scan versus automaton lookup time in CommandMatcher for growing keyword sets, which is
+ * where SCAN_MAX_KEYWORDS comes from. Both strategies are forced through the package-private
+ * constructor, checked to pick the same keyword for every input, then timed over several
+ * rounds after warmup; the median time per lookup is printed.
+ *
+ *   java -cp <classes> com.starkindustries.jarvis.ai.CommandMatcherBench [rounds]
+ */
+public class CommandMatcherBench {
+    private static final int[] SIZES = {2, 5, 10, 20, 32, 50, 100, 1_000, 10_000};
+    private static final int INPUTS = 2_000;
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+        Random random = new Random(1);
+        for (int size : SIZES) {
+            List<String> commands = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                commands.add(randomWord(random) + " " + randomWord(random));
+            }
+            String[] inputs = new String[INPUTS];
+            for (int i = 0; i < inputs.length; i++) {
+                // One in four has no command at all, the slow case for a scan
+                inputs[i] = i % 4 == 0 ? "jarvis please " + randomWord(random) + " right now"
+                    : "jarvis please " + commands.get(random.nextInt(size)) + " right now";
+            }
+
+            CommandMatcher scan = new CommandMatcher(commands, Integer.MAX_VALUE);
+            CommandMatcher automaton = new CommandMatcher(commands, -1);
+            for (String input : inputs) {
+                if (!Objects.equals(scan.findBest(input), automaton.findBest(input))) {
+                    throw new AssertionError("Strategies disagree on \"" + input + "\"");
+                }
+            }
+
+            double scanNanos = median(inputs, scan::findBest, rounds);
+            double automatonNanos = median(inputs, automaton::findBest, rounds);
+            System.out.printf("%6d commands: scan %9.3f us/lookup, automaton %7.3f us/lookup%s%n",
+                size, scanNanos / 1000.0, automatonNanos / 1000.0,
+                size <= CommandMatcher.SCAN_MAX_KEYWORDS ? "  (scan used)" : "");
+        }
+    }
+
+    private static double median(String[] inputs, Function<String, String> lookup, int rounds) {
+        for (int warmup = 0; warmup < 20; warmup++) {
+            run(inputs, lookup);
+        }
+        double[] perLookup = new double[rounds];
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            run(inputs, lookup);
+            perLookup[round] = (System.nanoTime() - start) / (double) inputs.length;
+        }
+        Arrays.sort(perLookup);
+        return perLookup[rounds / 2];
+    }
+
+    private static void run(String[] inputs, Function<String, String> lookup) {
+        for (String input : inputs) {
+            String found = lookup.apply(input);
+            if (found != null) sink += found.length(); // keeps the lookups from being optimised away
+        }
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
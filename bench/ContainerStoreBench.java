@@ -0,0 +1,80 @@
+package com.minecraftclone;
+
+import com.minecraftclone.MinecraftClone.ContainMod;
+import com.minecraftclone.MinecraftClone.ContainMod.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Container persistence throughput. Each round saves containerCount half-filled chests,
+ * each with one pipe, spread over chunk columns of a fresh temporary directory, loads them
+ * all back and prints containers per second for both directions. The first round includes
+ * JIT warm-up; the directory is deleted at the end.
+ *
+ *   java -cp <classes> com.minecraftclone.ContainerStoreBench [containers] [rounds]
+ */
+public class ContainerStoreBench {
+    private static final int PER_CHUNK = 64;
+    
+    public static void main(String[] args) throws IOException {
+        int containerCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Path dir = Files.createTempDirectory("container-bench");
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                System.out.print("Round " + round + ": ");
+                run(dir.resolve("round" + round), containerCount);
+            }
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+    
+    private static void run(Path directory, int containerCount) throws IOException {
+        ContainerStore store = new ContainerStore(directory);
+        int chunkCount = (containerCount + PER_CHUNK - 1) / PER_CHUNK;
+        int side = (int) Math.ceil(Math.sqrt(chunkCount));
+        ItemType[] items = ItemType.values();
+        Random random = new Random(1);
+        
+        long saveNanos = 0, loadNanos = 0;
+        int saved = 0, loaded = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            int chunkX = c % side, chunkZ = c / side;
+            List<Container> containers = new ArrayList<>(PER_CHUNK);
+            for (int i = 0; i < PER_CHUNK && saved + containers.size() < containerCount; i++) {
+                Container container = new Container(ContainerType.CHEST, (chunkX << 4) + (i & 15), 64 + (i >> 4), chunkZ << 4);
+                for (int slot = 0; slot < container.getSize() / 2; slot++) {
+                    container.insertItem(items[1 + random.nextInt(items.length - 1)], 1 + random.nextInt(64));
+                }
+                container.addPipeTarget(ContainMod.packPosition(container.getX(), container.getY() + 1, container.getZ()));
+                containers.add(container);
+            }
+            long start = System.nanoTime();
+            store.save(chunkX, chunkZ, containers);
+            saveNanos += System.nanoTime() - start;
+            saved += containers.size();
+        }
+        for (int c = 0; c < chunkCount; c++) {
+            long start = System.nanoTime();
+            loaded += store.load(c % side, c / side).size();
+            loadNanos += System.nanoTime() - start;
+        }
+        
+        System.out.printf("saved %d containers in %.0f ms (%.0f/s), loaded %d in %.0f ms (%.0f/s)%n",
+            saved, saveNanos / 1e6, saved / (saveNanos / 1e9), loaded, loadNanos / 1e6, loaded / (loadNanos / 1e9));
+    }
+    
+    private static void deleteRecursively(Path dir) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+}
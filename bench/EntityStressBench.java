@@ -0,0 +1,52 @@
+package com.minecraftclone;
+
+import com.minecraftclone.MinecraftClone.*;
+
+import java.util.Random;
+
+/**
+ * Entity tick stress check. Loads the chunks around the origin, spawns entityCount mobs over
+ * them so every tick does real ground collision, ticks them with a sampled collision query
+ * per 16 entities and prints the average tick time against the GameEngine budget of 50 ms
+ * (20 UPS).
+ *
+ *   java -cp <classes> com.minecraftclone.EntityStressBench [entities] [ticks]
+ */
+public class EntityStressBench {
+    public static void main(String[] args) {
+        int entityCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        
+        World world = World.getInstance();
+        // Spawn area is -32..32; one ring of margin keeps wandering mobs on loaded terrain
+        for (int cx = -3; cx <= 2; cx++) {
+            for (int cz = -3; cz <= 2; cz++) {
+                world.getChunk(cx, cz);
+            }
+        }
+        
+        EntityManager entities = new EntityManager();
+        Random random = new Random(1);
+        int[] ids = new int[entityCount];
+        for (int i = 0; i < entityCount; i++) {
+            ids[i] = entities.spawn(EntityKind.MOB, random.nextFloat() * 64 - 32, 80, random.nextFloat() * 64 - 32, 0.6f, 1.8f);
+            entities.setVelocity(ids[i], random.nextFloat() * 4 - 2, 0, random.nextFloat() * 4 - 2);
+        }
+        
+        double totalMillis = 0;
+        int[] neighbours = new int[1];
+        for (int t = 0; t < ticks; t++) {
+            entities.tick(world);
+            long start = System.nanoTime();
+            for (int i = 0; i < entityCount; i += 16) {
+                entities.forEachColliding(ids[i], other -> neighbours[0]++);
+            }
+            totalMillis += entities.getLastTickMillis() + (System.nanoTime() - start) / 1_000_000.0;
+        }
+        entities.cleanup();
+        world.cleanup();
+        
+        System.out.printf("%d entities: %.2f ms per tick (budget 50 ms), %d sampled collisions%n",
+            entityCount, totalMillis / ticks, neighbours[0]);
+    }
+}
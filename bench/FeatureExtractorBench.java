@@ -0,0 +1,65 @@
+package com.starkindustries.jarvis.voice;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * MFCC throughput and allocation check. Extracts synthetic audio streams with one extractor
+ * on one core and with extractAll across the available cores, printing frames/sec for each.
+ * Then, after warmup, runs single-core passes under the JVM's per-thread allocation counter
+ * and prints the bytes allocated per pass, which should be 0 once the scratch arrays exist.
+ *
+ *   java -cp <classes> com.starkindustries.jarvis.voice.FeatureExtractorBench [passes]
+ */
+public class FeatureExtractorBench {
+    private static final int STREAMS = 64;
+    private static final int SECONDS = 10;
+
+    public static void main(String[] args) {
+        int passes = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        Random random = new Random(3);
+        float[][] streams = new float[STREAMS][];
+        float[][] outputs = new float[STREAMS][];
+        for (int s = 0; s < STREAMS; s++) {
+            byte[] pcm = AudioCaptureBench.synthesizeTestAudio(SECONDS, random);
+            streams[s] = new float[pcm.length / 2];
+            for (int i = 0; i < streams[s].length; i++) {
+                streams[s][i] = (short) ((pcm[2 * i] & 0xFF) | (pcm[2 * i + 1] << 8)) / 32768f;
+            }
+            outputs[s] = new float[FeatureExtractor.frameCount(streams[s].length) * FeatureExtractor.COEFFICIENTS];
+        }
+        long framesPerPass = (long) STREAMS * FeatureExtractor.frameCount(streams[0].length);
+
+        FeatureExtractor single = new FeatureExtractor();
+        for (int warmup = 0; warmup < 3; warmup++) pass(single, streams, outputs);
+        long start = System.nanoTime();
+        pass(single, streams, outputs);
+        double singleRate = framesPerPass * 1e9 / (System.nanoTime() - start);
+
+        for (int warmup = 0; warmup < 3; warmup++) FeatureExtractor.extractAll(streams, outputs);
+        start = System.nanoTime();
+        FeatureExtractor.extractAll(streams, outputs);
+        double parallelRate = framesPerPass * 1e9 / (System.nanoTime() - start);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("MFCC: %.0f frames/s on one core (%.0fx real time), %.0f frames/s across %d cores (%.0f per core)%n",
+            singleRate, singleRate / 100, parallelRate, cores, parallelRate / cores);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        long overhead = threads.getThreadAllocatedBytes(thread) - before; // cost of the counter call itself
+
+        before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < passes; i++) pass(single, streams, outputs);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+        System.out.printf("Allocation: %d bytes over %d passes of %d frames (%.3f bytes/frame)%n",
+            allocated, passes, framesPerPass, (double) allocated / (passes * framesPerPass));
+    }
+
+    private static void pass(FeatureExtractor extractor, float[][] streams, float[][] outputs) {
+        for (int s = 0; s < streams.length; s++) {
+            extractor.extract(streams[s], 0, streams[s].length, outputs[s], 0);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.starkindustries.jarvis.ai;
+
+import java.util.*;
+
+/**
+ * Count-min sketch accuracy and speed. Feeds a Zipf-distributed command stream mixed with a
+ * flood of unique junk commands, then prints the update rate, top-k recall against exact
+ * counts, top-10 query latency and memory use.
+ *
+ *   java -cp <classes> com.starkindustries.jarvis.ai.FrequencySketchBench [width] [k] [updates]
+ */
+public class FrequencySketchBench {
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int updates = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        FrequencySketch sketch = new FrequencySketch(width, k);
+        Map<String, Integer> exact = new HashMap<>();
+        Random random = new Random(5);
+        String[] commands = new String[updates];
+        for (int i = 0; i < updates; i++) {
+            // Half the traffic is distinct one-off phrasings, as an adversary would send
+            commands[i] = random.nextBoolean()
+                ? "junk " + i
+                : "command " + (int) (10_000 * Math.pow(random.nextDouble(), 4));
+        }
+
+        long start = System.nanoTime();
+        for (String command : commands) sketch.add(command, 1);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (String command : commands) exact.merge(command, 1, Integer::sum);
+
+        List<Map.Entry<String, Integer>> truth = new ArrayList<>(exact.entrySet());
+        truth.sort((a, b) -> b.getValue() - a.getValue());
+        Set<String> trueTop = new HashSet<>();
+        for (int i = 0; i < Math.min(k, truth.size()); i++) trueTop.add(truth.get(i).getKey());
+        int recalled = 0;
+        for (FrequencySketch.HeavyHitter hitter : sketch.getHeavyHitters()) {
+            if (trueTop.contains(hitter.getKey())) recalled++;
+        }
+
+        List<FrequencySketch.HeavyHitter> top = null;
+        for (int i = 0; i < 20_000; i++) top = sketch.getMostFrequent(10); // warm up
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) top = sketch.getMostFrequent(10);
+        double microsPerQuery = (System.nanoTime() - start) / 1000.0 / 10_000;
+
+        System.out.printf("Frequency sketch: %.1fM updates/s, top-%d recall %d/%d, %.1f us per top-10 query, ~%d KB vs %d distinct keys exact%n",
+            updates / seconds / 1e6, k, recalled, trueTop.size(), microsPerQuery, sketch.getMemoryFootprint() / 1024, exact.size());
+        System.out.println("  most frequent: " + top);
+    }
+}
@@ -0,0 +1,85 @@
+package com.starkindustries.jarvis.voice;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Keyword spotting accuracy and latency over a synthetic corpus. Writes takes of the default
+ * command set with SyntheticVoice to a temporary directory, enrolls the first templates per
+ * keyword and recognizes the rest, prints accuracy, rejections and per-utterance latency,
+ * and deletes the directory.
+ *
+ *   java -cp <classes> com.starkindustries.jarvis.voice.KeywordSpotterBench [takes] [templates]
+ */
+public class KeywordSpotterBench {
+    private static final List<String> VOCABULARY = Arrays.asList("status", "analyze", "scan", "suit up", "coffee", "music",
+        "simulation", "emergency", "team status", "threat assessment");
+
+    public static void main(String[] args) throws IOException, UnsupportedAudioFileException {
+        int takes = args.length > 0 ? Integer.parseInt(args[0]) : 22;
+        int templatesPerKeyword = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        Path dir = Files.createTempDirectory("jarvis-kws");
+        try {
+            SyntheticVoice.writeTakes(VOCABULARY, dir, takes, 42);
+            evaluate(dir, templatesPerKeyword);
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Enrolls the first templatesPerKeyword takes of each keyword in dir and recognizes the
+     * rest, printing accuracy, rejections and per-utterance latency.
+     */
+    static void evaluate(Path dir, int templatesPerKeyword) throws IOException, UnsupportedAudioFileException {
+        Map<String, List<Path>> takes = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.wav")) {
+            for (Path file : files) takes.computeIfAbsent(KeywordSpotter.keywordOf(file), k -> new ArrayList<>()).add(file);
+        }
+
+        KeywordSpotter spotter = new KeywordSpotter();
+        List<Path> tests = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (Map.Entry<String, List<Path>> entry : takes.entrySet()) {
+            List<Path> files = entry.getValue();
+            Collections.sort(files);
+            for (int i = 0; i < files.size(); i++) {
+                if (i < templatesPerKeyword) {
+                    spotter.enroll(entry.getKey(), files.get(i));
+                } else {
+                    tests.add(files.get(i));
+                    expected.add(entry.getKey());
+                }
+            }
+        }
+
+        // Warm up the JIT so latency reflects steady state
+        for (int i = 0; i < Math.min(tests.size(), 50); i++) spotter.recognize(tests.get(i));
+
+        int correct = 0, rejected = 0;
+        double totalMillis = 0, maxMillis = 0;
+        for (int i = 0; i < tests.size(); i++) {
+            KeywordSpotter.Result result = spotter.recognize(tests.get(i));
+            if (result.getKeyword() == null) rejected++;
+            else if (result.getKeyword().equals(expected.get(i))) correct++;
+            totalMillis += result.getLatencyMillis();
+            maxMillis = Math.max(maxMillis, result.getLatencyMillis());
+        }
+        System.out.printf("Keyword spotting: %d/%d correct (%.1f%%), %d rejected, %d templates, latency avg %.2fms max %.2fms%n",
+            correct, tests.size(), 100.0 * correct / Math.max(1, tests.size()), rejected, spotter.getTemplateCount(),
+            totalMillis / Math.max(1, tests.size()), maxMillis);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.starkindustries.jarvis.ai;
+
+import java.util.*;
+
+/**
+ * BM25 index throughput. Fills a knowledge base of the given capacity with twice as many
+ * synthetic interaction records (so half are evicted along the way), then prints the
+ * indexing rate and the query latency after warmup.
+ *
+ *   java -cp <classes> com.starkindustries.jarvis.ai.KnowledgeIndexBench [capacity]
+ */
+public class KnowledgeIndexBench {
+    public static void main(String[] args) {
+        int capacity = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] vocabulary = new String[5000];
+        Random random = new Random(11);
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = "w" + Integer.toString(i, 36) + (char) ('a' + random.nextInt(26));
+        }
+        KnowledgeIndex index = new KnowledgeIndex(new KnowledgeBase(capacity));
+
+        long start = System.nanoTime();
+        StringBuilder text = new StringBuilder();
+        for (int n = 0; n < capacity * 2; n++) {
+            text.setLength(0);
+            text.append("Command: ");
+            for (int w = 0; w < 8; w++) {
+                // Zipf-like word choice so some terms are very common and most are rare
+                int word = (int) (vocabulary.length * Math.pow(random.nextDouble(), 3));
+                text.append(vocabulary[word]).append(' ');
+            }
+            index.append(text.toString());
+        }
+        double indexSeconds = (System.nanoTime() - start) / 1e9;
+
+        String[] queries = new String[1000];
+        for (int q = 0; q < queries.length; q++) {
+            queries[q] = vocabulary[random.nextInt(vocabulary.length)] + " " + vocabulary[random.nextInt(200)];
+        }
+        int found = 0;
+        for (int warmup = 0; warmup < 5; warmup++) {
+            for (String query : queries) found += index.search(query, 10).size();
+        }
+        start = System.nanoTime();
+        for (String query : queries) found += index.search(query, 10).size();
+        double microsPerQuery = (System.nanoTime() - start) / 1000.0 / queries.length;
+
+        System.out.printf("Knowledge index: %d live entries, %d terms, indexed %.0f entries/s, %.1f us/query (%d hits)%n",
+            capacity, index.getTermCount(), capacity * 2 / indexSeconds, microsPerQuery, found);
+    }
+}
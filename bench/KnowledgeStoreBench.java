@@ -0,0 +1,68 @@
+package com.starkindustries.jarvis.ai;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Startup time against log length. Appends knowledge and weight history to a temporary
+ * KnowledgeStore in four steps up to totalRecords and, after each step, times a cold start
+ * that loads a capacity-entry ring, showing startup stays flat as the log grows. Deletes
+ * the directory at the end.
+ *
+ *   java -cp <classes> com.starkindustries.jarvis.ai.KnowledgeStoreBench [capacity] [records]
+ */
+public class KnowledgeStoreBench {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int capacity = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long totalRecords = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        Path dir = Files.createTempDirectory("knowledge-bench");
+        try {
+            run(dir, capacity, totalRecords);
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    private static void run(Path dir, int capacity, long totalRecords) throws IOException, InterruptedException {
+        long written = 0;
+        long step = totalRecords / 4;
+        while (written < totalRecords) {
+            long start = System.nanoTime();
+            try (KnowledgeStore store = new KnowledgeStore(dir)) {
+                Map<String, Integer> weights = new HashMap<>();
+                store.load(capacity, (text, timestamp) -> { }, (command, delta) -> weights.merge(command, delta, Integer::sum));
+                for (long i = 0; i < step; i++, written++) {
+                    store.recordKnowledge("Command: scan sector " + written + " | Response: Sector clear", System.currentTimeMillis());
+                    String command = "scan sector " + (written % 1000);
+                    if (store.recordWeight(command, 1, () -> weights.merge(command, 1, Integer::sum))) {
+                        store.snapshotWeights(() -> new HashMap<>(weights));
+                    }
+                }
+                store.flush();
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Appended %d knowledge + %d weight records in %.2fs (%.0f records/s durable)%n",
+                    step, step, seconds, 2 * step / seconds);
+            }
+
+            start = System.nanoTime();
+            long[] loaded = new long[2];
+            try (KnowledgeStore store = new KnowledgeStore(dir)) {
+                store.load(capacity, (text, timestamp) -> loaded[0]++, (command, delta) -> loaded[1]++);
+                System.out.printf("  history %,d: startup loaded %d entries + %d weight records in %.1fms (%s)%n",
+                    written, loaded[0], loaded[1], (System.nanoTime() - start) / 1e6, store.getStatus());
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+}
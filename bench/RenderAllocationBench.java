@@ -0,0 +1,74 @@
+package com.minecraftclone;
+
+import com.minecraftclone.MinecraftClone.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.FloatBuffer;
+
+/**
+ * Allocation check for the per-frame camera and culling path. Loads a square of chunks
+ * around the player, runs frames through a GameRenderer with a no-op draw backend until the
+ * meshes have settled, then reports the bytes the render thread allocated per frame over
+ * the measured frames, using the JVM's per-thread allocation counter. Each frame does what
+ * the game loop does outside GL: a player tick with no keys held (physics and collision),
+ * the camera matrices, the chunk list refresh, cave culling and the indirect batch.
+ *
+ *   java -cp <classes> com.minecraftclone.RenderAllocationBench [frames] [radius]
+ */
+public class RenderAllocationBench {
+    private static class NoOpBackend implements ChunkDrawBackend {
+        @Override public void init(int vertexCapacity, int maxDraws) { }
+        @Override public void writeVertices(int firstVertex, FloatBuffer vertices) { }
+        @Override public void submit(IndirectDrawBatch batch) { }
+        @Override public void endFrame() { }
+        @Override public void cleanup() { }
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int radius = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        
+        World world = World.getInstance();
+        Player player = new Player(world);
+        InputHandler input = new InputHandler(); // never attached to a window, so no keys are held
+        GameRenderer renderer = new GameRenderer(new NoOpBackend());
+        for (int x = -radius; x <= radius; x++) {
+            for (int z = -radius; z <= radius; z++) {
+                world.getChunk(x, z);
+            }
+        }
+        
+        // Meshes and LOD meshes build on the world's builder threads; give them time to land
+        for (int i = 0; i < 500; i++) {
+            frame(world, player, input, renderer);
+            Thread.sleep(2);
+        }
+        for (int i = 0; i < frames; i++) {
+            frame(world, player, input, renderer); // JIT warm-up
+        }
+        
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        long overhead = threads.getThreadAllocatedBytes(thread) - before; // cost of the counter call itself
+        
+        before = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            frame(world, player, input, renderer);
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+        
+        System.out.printf("%d frames over %d chunks: %d bytes allocated (%.3f bytes/frame), %.1f us/frame, %.0f%% of sections culled%n",
+            frames, world.getChunks().size(), allocated, (double) allocated / frames, nanos / 1000.0 / frames,
+            renderer.getCulledFraction() * 100);
+        world.cleanup();
+    }
+    
+    private static void frame(World world, Player player, InputHandler input, GameRenderer renderer) {
+        player.update(input);
+        renderer.updateCamera(player);
+        renderer.drawChunks(world, player);
+    }
+}
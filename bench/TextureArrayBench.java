@@ -0,0 +1,73 @@
+package com.minecraftclone;
+
+import com.minecraftclone.MinecraftClone.BlockRegistry;
+import com.minecraftclone.MinecraftClone.TextureArrayBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Cold versus warm start of the block texture array. Writes a random 256x256 atlas to a
+ * temporary directory, then per round builds once with no cache file (cold: decode, slice,
+ * mip chain, cache write) and once more from the cache that build wrote (warm). Prints the
+ * median and best of each and deletes the directory.
+ *
+ *   java -cp <classes> com.minecraftclone.TextureArrayBench [rounds]
+ */
+public class TextureArrayBench {
+    private static final int TILE_SIZE = 16;
+    
+    public static void main(String[] args) throws IOException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        Path dir = Files.createTempDirectory("texture-bench");
+        try {
+            Path atlasFile = dir.resolve("terrain.png");
+            Path cacheFile = dir.resolve("terrain-array.bin");
+            writeAtlas(atlasFile);
+            
+            double[] cold = new double[rounds], warm = new double[rounds];
+            for (int round = 0; round < rounds; round++) {
+                Files.deleteIfExists(cacheFile);
+                long start = System.nanoTime();
+                new TextureArrayBuilder(atlasFile, cacheFile).build();
+                cold[round] = (System.nanoTime() - start) / 1e6;
+                
+                start = System.nanoTime();
+                new TextureArrayBuilder(atlasFile, cacheFile).build();
+                warm[round] = (System.nanoTime() - start) / 1e6;
+            }
+            Arrays.sort(cold);
+            Arrays.sort(warm);
+            System.out.printf("Texture array, %d rounds: cold median %.1f ms (best %.1f), warm median %.1f ms (best %.1f), cache %d KB%n",
+                rounds, cold[rounds / 2], cold[0], warm[rounds / 2], warm[0], Files.size(cacheFile) / 1024);
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+    
+    private static void writeAtlas(Path file) throws IOException {
+        int size = BlockRegistry.ATLAS_TILES_PER_ROW * TILE_SIZE;
+        BufferedImage atlas = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(29);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                atlas.setRGB(x, y, 0xFF000000 | random.nextInt(0x1000000));
+            }
+        }
+        ImageIO.write(atlas, "png", file.toFile());
+    }
+    
+    private static void deleteRecursively(Path dir) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+}
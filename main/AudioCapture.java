@@ -0,0 +1,334 @@
+package com.starkindustries.jarvis.voice;
+
+import javax.sound.sampled.*;
+import java.io.*;
+import java.lang.management.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming PCM front end. A capture thread reads fixed 20 ms frames of 16 kHz mono audio
+ * from a microphone line or a WAV file into pooled direct buffers, runs an energy /
+ * zero-crossing voice activity detector over each frame and hands complete utterances to
+ * a listener. Silence frames go straight back to the pool; listeners must call
+ * SpeechSegment.release() once they are done with a segment.
+ */
+public class AudioCapture {
+    public static final AudioFormat FORMAT = new AudioFormat(16000, 16, 1, true, false);
+    public static final int FRAME_SAMPLES = 320; // 20 ms
+    public static final int FRAME_BYTES = FRAME_SAMPLES * 2;
+
+    private static final int POOL_FRAMES = 1024;          // ~20 s of audio in flight
+    private static final int MAX_SEGMENT_FRAMES = 500;    // 10 s cap per utterance
+    private static final int START_FRAMES = 3;            // speech frames needed to open a segment
+    private static final int HANGOVER_FRAMES = 15;        // silence frames needed to close it
+    private static final double ENERGY_RATIO = 4.0;       // speech energy over the noise floor
+    private static final double MIN_ENERGY = 1.0e4;       // mean square, ~ -50 dBFS
+    private static final double ZCR_MIN = 0.02, ZCR_MAX = 0.5;
+
+    @FunctionalInterface
+    public interface SegmentListener {
+        void onSegment(SpeechSegment segment);
+    }
+
+    /** One detected utterance, backed by pooled frames until released. */
+    public class SpeechSegment {
+        private final ByteBuffer[] frames;
+        private final int frameCount;
+        private final long startFrame;
+        private boolean released;
+
+        private SpeechSegment(ByteBuffer[] frames, int frameCount, long startFrame) {
+            this.frames = frames;
+            this.frameCount = frameCount;
+            this.startFrame = startFrame;
+        }
+
+        public int getSampleCount() {
+            return frameCount * FRAME_SAMPLES;
+        }
+
+        public double getDurationMillis() {
+            return frameCount * 20.0;
+        }
+
+        public double getStartMillis() {
+            return startFrame * 20.0;
+        }
+
+        public short getSample(int index) {
+            return frames[index / FRAME_SAMPLES].getShort((index % FRAME_SAMPLES) * 2);
+        }
+
+        /** Copies samples scaled to [-1, 1) into dest, which must hold getSampleCount() values. */
+        public void copySamples(float[] dest) {
+            int out = 0;
+            for (int f = 0; f < frameCount; f++) {
+                ByteBuffer frame = frames[f];
+                for (int i = 0; i < FRAME_SAMPLES; i++) {
+                    dest[out++] = frame.getShort(i * 2) / 32768f;
+                }
+            }
+        }
+
+        public synchronized void release() {
+            if (released) return;
+            released = true;
+            for (int f = 0; f < frameCount; f++) {
+                releaseFrame(frames[f]);
+                frames[f] = null;
+            }
+        }
+    }
+
+    // Frame pool: any thread returns frames, only the capture thread takes them
+    private final MpscRingBuffer<ByteBuffer> freeFrames = new MpscRingBuffer<>(POOL_FRAMES,
+        MpscRingBuffer.OverflowPolicy.DROP_NEWEST, MpscRingBuffer.WaitStrategy.PARKING);
+
+    private final SegmentListener listener;
+    private final byte[] readBuffer = new byte[FRAME_BYTES];
+    private Thread captureThread;
+    private volatile boolean running;
+
+    // VAD state, capture thread only
+    private final ByteBuffer[] pending = new ByteBuffer[MAX_SEGMENT_FRAMES];
+    private int pendingCount;
+    private int speechRun, silenceRun;
+    private boolean inSpeech;
+    private long segmentStartFrame;
+    private double noiseFloor = MIN_ENERGY / ENERGY_RATIO;
+
+    // Metrics
+    private volatile long framesCaptured, speechFrames, segments, poolStarvedFrames;
+    private volatile long captureCpuNanos, captureWallNanos;
+
+    public AudioCapture(SegmentListener listener) {
+        this.listener = listener;
+        for (int i = 0; i < POOL_FRAMES; i++) {
+            freeFrames.offer(ByteBuffer.allocateDirect(FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /** Starts capturing from the default microphone. */
+    public void startMicrophone() throws LineUnavailableException {
+        TargetDataLine line = AudioSystem.getTargetDataLine(FORMAT);
+        line.open(FORMAT, FRAME_BYTES * 8);
+        line.start();
+        start(new AudioInputStream(line), false, "microphone");
+    }
+
+    /**
+     * Streams a WAV file as a stand-in for the microphone. With realTime set the file is
+     * paced at its natural rate, otherwise it is read as fast as the pipeline allows.
+     */
+    public void startFile(Path wavFile, boolean realTime) throws IOException, UnsupportedAudioFileException {
+        start(openWav(wavFile), realTime, wavFile.toString());
+    }
+
+    public static AudioInputStream openWav(Path wavFile) throws IOException, UnsupportedAudioFileException {
+        AudioInputStream in = AudioSystem.getAudioInputStream(new BufferedInputStream(Files.newInputStream(wavFile)));
+        if (!in.getFormat().matches(FORMAT)) {
+            in = AudioSystem.getAudioInputStream(FORMAT, in);
+        }
+        return in;
+    }
+
+    public synchronized void start(AudioInputStream in, boolean realTime, String name) {
+        if (running || (captureThread != null && captureThread.isAlive())) {
+            throw new IllegalStateException("Audio capture already running");
+        }
+        running = true;
+        captureThread = new Thread(() -> captureLoop(in, realTime), "JARVIS-Audio-" + name);
+        captureThread.setDaemon(true);
+        captureThread.start();
+    }
+
+    private void captureLoop(AudioInputStream in, boolean realTime) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpuTimed = threads.isCurrentThreadCpuTimeSupported();
+        long cpuStart = cpuTimed ? threads.getCurrentThreadCpuTime() : 0;
+        long wallStart = System.nanoTime();
+        long frameIndex = 0;
+
+        try (AudioInputStream stream = in) {
+            while (running) {
+                if (!readFully(stream, readBuffer)) break;
+
+                ByteBuffer frame = freeFrames.poll(100, TimeUnit.MILLISECONDS);
+                if (frame == null) {
+                    // Downstream is holding every frame; skip this one rather than grow the pool
+                    poolStarvedFrames++;
+                    frameIndex++;
+                    continue;
+                }
+                frame.clear();
+                frame.put(readBuffer).flip();
+                processFrame(frame, frameIndex++);
+
+                if (realTime) {
+                    long due = wallStart + frameIndex * 20_000_000L;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+                if ((frameIndex & 63) == 0 && cpuTimed) {
+                    captureCpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+                    captureWallNanos = System.nanoTime() - wallStart;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Audio capture failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (inSpeech) closeSegment();
+            releasePending();
+            if (cpuTimed) captureCpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+            captureWallNanos = System.nanoTime() - wallStart;
+            running = false;
+        }
+    }
+
+    private static boolean readFully(InputStream in, byte[] buffer) throws IOException {
+        int read = 0;
+        while (read < buffer.length) {
+            int n = in.read(buffer, read, buffer.length - read);
+            if (n < 0) {
+                if (read == 0) return false;
+                Arrays.fill(buffer, read, buffer.length, (byte) 0); // pad the final partial frame
+                return true;
+            }
+            read += n;
+        }
+        return true;
+    }
+
+    private void processFrame(ByteBuffer frame, long frameIndex) {
+        framesCaptured++;
+
+        double energy = 0;
+        int crossings = 0;
+        short previous = frame.getShort(0);
+        for (int i = 0; i < FRAME_SAMPLES; i++) {
+            short sample = frame.getShort(i * 2);
+            energy += (double) sample * sample;
+            if ((sample ^ previous) < 0) crossings++;
+            previous = sample;
+        }
+        energy /= FRAME_SAMPLES;
+        double zcr = (double) crossings / FRAME_SAMPLES;
+
+        boolean voiced = energy > MIN_ENERGY && energy > noiseFloor * ENERGY_RATIO && zcr >= ZCR_MIN && zcr <= ZCR_MAX;
+        if (!voiced) {
+            // Noise floor follows quiet frames quickly downwards and slowly upwards
+            noiseFloor = energy < noiseFloor ? noiseFloor * 0.9 + energy * 0.1 : noiseFloor * 0.995 + energy * 0.005;
+        }
+
+        if (inSpeech) {
+            appendPending(frame);
+            silenceRun = voiced ? 0 : silenceRun + 1;
+            if (silenceRun >= HANGOVER_FRAMES || pendingCount == MAX_SEGMENT_FRAMES) {
+                closeSegment();
+            }
+            return;
+        }
+
+        if (voiced) {
+            if (speechRun == 0) segmentStartFrame = frameIndex;
+            appendPending(frame); // onset frames are kept as pre-roll
+            if (++speechRun >= START_FRAMES) {
+                inSpeech = true;
+                silenceRun = 0;
+            }
+        } else {
+            speechRun = 0;
+            releasePending();
+            releaseFrame(frame);
+        }
+    }
+
+    private void appendPending(ByteBuffer frame) {
+        pending[pendingCount++] = frame;
+    }
+
+    private void closeSegment() {
+        // Trailing silence beyond a short tail is not speech; return it to the pool
+        int keep = Math.min(pendingCount, pendingCount - silenceRun + 3);
+        for (int i = keep; i < pendingCount; i++) {
+            releaseFrame(pending[i]);
+            pending[i] = null;
+        }
+        speechFrames += keep;
+        segments++;
+
+        SpeechSegment segment = new SpeechSegment(Arrays.copyOf(pending, keep), keep, segmentStartFrame);
+        Arrays.fill(pending, 0, pendingCount, null);
+        pendingCount = 0;
+        inSpeech = false;
+        speechRun = 0;
+        silenceRun = 0;
+
+        try {
+            listener.onSegment(segment);
+        } catch (RuntimeException e) {
+            System.err.println("Speech segment listener failed: " + e.getMessage());
+            segment.release();
+        }
+    }
+
+    private void releasePending() {
+        for (int i = 0; i < pendingCount; i++) {
+            releaseFrame(pending[i]);
+            pending[i] = null;
+        }
+        pendingCount = 0;
+    }
+
+    private void releaseFrame(ByteBuffer frame) {
+        freeFrames.offer(frame);
+    }
+
+    /** Stops capture and waits for the capture thread to flush its last segment. */
+    public void stop() {
+        running = false;
+        Thread thread = captureThread;
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void awaitCompletion() throws InterruptedException {
+        Thread thread = captureThread;
+        if (thread != null) thread.join();
+    }
+
+    public long getFramesCaptured() {
+        return framesCaptured;
+    }
+
+    public double getFramesPerSecond() {
+        long wall = captureWallNanos;
+        return wall > 0 ? framesCaptured * 1e9 / wall : 0.0;
+    }
+
+    // Capture thread CPU time spent per second of audio processed
+    public double getCpuMillisPerAudioSecond() {
+        long frames = framesCaptured;
+        return frames > 0 ? captureCpuNanos / 1_000_000.0 / (frames * 0.02) : 0.0;
+    }
+
+    public String getStatus() {
+        return String.format("Audio: %d frames (%.0f/s), %d speech frames in %d segments, %d starved, %.2f ms CPU per audio second",
+            framesCaptured, getFramesPerSecond(), speechFrames, segments, poolStarvedFrames, getCpuMillisPerAudioSecond());
+    }
+}
@@ -1,39 +1,99 @@
 package com.starkindustries.jarvis.ai;
 
+import java.io.IOException;
+import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
 
 public class NeuralNetwork {
     private Map<String, CommandHandler> commandRegistry;
-    private List<String> knowledgeBase;
-    private Map<String, Integer> learningWeights;
+    private KnowledgeBase knowledgeBase;
+    private KnowledgeIndex knowledgeIndex;
+    private volatile KnowledgeStore knowledgeStore; // null when running in memory only
+    private FrequencySketch learningWeights; // fixed memory however many distinct commands arrive
     private ScheduledExecutorService learningService;
+    private volatile CommandMatcher commandMatcher; // null until (re)built after a registration
+    
+    public static final int DEFAULT_KNOWLEDGE_CAPACITY = 1000;
+    public static final Path DEFAULT_STORE_DIR = Paths.get("knowledge");
+    
+    private static final int WEIGHT_SKETCH_WIDTH = 4096;
+    private static final int TRACKED_COMMANDS = 64;
+    private static final float WEIGHT_DECAY = (float) Math.pow(0.5, 1.0 / 24); // per hourly tick: one-day half-life
+    private static final float MIN_WEIGHT = 1f;
     
     public NeuralNetwork() {
+        this(DEFAULT_KNOWLEDGE_CAPACITY, DEFAULT_STORE_DIR);
+    }
+    
+    // In-memory only: nothing is loaded or persisted
+    public NeuralNetwork(int knowledgeCapacity) {
+        this(knowledgeCapacity, null);
+    }
+    
+    public NeuralNetwork(int knowledgeCapacity, Path storeDir) {
         this.commandRegistry = new ConcurrentHashMap<>();
-        this.knowledgeBase = new ArrayList<>();
-        this.learningWeights = new ConcurrentHashMap<>();
+        this.knowledgeBase = new KnowledgeBase(knowledgeCapacity); // keeps the most recent entries
+        this.knowledgeIndex = new KnowledgeIndex(knowledgeBase);
+        this.learningWeights = new FrequencySketch(WEIGHT_SKETCH_WIDTH, TRACKED_COMMANDS);
         this.learningService = Executors.newScheduledThreadPool(2);
+        if (storeDir != null) {
+            openKnowledgeStore(storeDir);
+        }
         initializeCommandRegistry();
         startContinuousLearning();
     }
     
+    private void openKnowledgeStore(Path storeDir) {
+        try {
+            long start = System.nanoTime();
+            KnowledgeStore store = new KnowledgeStore(storeDir);
+            long records = store.load(knowledgeBase.capacity(), knowledgeIndex::append,
+                (command, delta) -> learningWeights.add(command, delta));
+            this.knowledgeStore = store;
+            System.out.printf("Neural network state restored: %d records in %.1fms%n", records, (System.nanoTime() - start) / 1e6);
+        } catch (IOException e) {
+            System.err.println("Knowledge store unavailable, running in memory: " + e.getMessage());
+        }
+    }
+    
     private void initializeCommandRegistry() {
         // Basic commands
-        commandRegistry.put("status", this::handleStatusRequest);
-        commandRegistry.put("analyze", this::handleAnalysis);
-        commandRegistry.put("scan", this::handleEnvironmentalScan);
-        commandRegistry.put("suit up", this::handleSuitDeployment);
+        registerCommand("status", this::handleStatusRequest);
+        registerCommand("analyze", this::handleAnalysis);
+        registerCommand("scan", this::handleEnvironmentalScan);
+        registerCommand("suit up", this::handleSuitDeployment);
         
         // Tony's personal commands
-        commandRegistry.put("coffee", this::handleCoffeeRequest);
-        commandRegistry.put("music", this::handleMusicRequest);
-        commandRegistry.put("simulation", this::handleSimulation);
-        commandRegistry.put("emergency", this::handleEmergency);
+        registerCommand("coffee", this::handleCoffeeRequest);
+        registerCommand("music", this::handleMusicRequest);
+        registerCommand("simulation", this::handleSimulation);
+        registerCommand("emergency", this::handleEmergency);
         
         // Avengers-related commands
-        commandRegistry.put("team status", this::handleTeamStatus);
-        commandRegistry.put("threat assessment", this::handleThreatAssessment);
+        registerCommand("team status", this::handleTeamStatus);
+        registerCommand("threat assessment", this::handleThreatAssessment);
+    }
+    
+    // Synchronized with getCommandMatcher: otherwise a build that had already copied the
+    // keywords could publish its matcher after this cleared it, hiding the new keyword for good
+    public synchronized void registerCommand(String keyword, CommandHandler handler) {
+        commandRegistry.put(keyword.toLowerCase().trim(), handler);
+        // Rebuilt lazily so bulk registration compiles the automaton once
+        commandMatcher = null;
+    }
+    
+    public Set<String> getCommandKeywords() {
+        return Collections.unmodifiableSet(commandRegistry.keySet());
+    }
+    
+    private synchronized CommandMatcher getCommandMatcher() {
+        CommandMatcher matcher = commandMatcher;
+        if (matcher == null) {
+            matcher = new CommandMatcher(new ArrayList<>(commandRegistry.keySet()));
+            commandMatcher = matcher;
+        }
+        return matcher;
     }
     
     public String processCommand(String command) {
@@ -45,50 +105,145 @@ public class NeuralNetwork {
             return handler.handle(command);
         }
         
-        // Fuzzy matching and intent recognition
-        for (String key : commandRegistry.keySet()) {
-            if (normalized.contains(key)) {
-                return commandRegistry.get(key).handle(command);
-            }
+        // Fuzzy matching and intent recognition: one pass over the input finds every
+        // registered keyword, and the most specific one wins ("team status" over "status")
+        CommandMatcher matcher = commandMatcher;
+        if (matcher == null) {
+            matcher = getCommandMatcher();
+        }
+        String key = matcher.findBest(normalized);
+        if (key != null && (handler = commandRegistry.get(key)) != null) {
+            return handler.handle(command);
         }
         
-        // Learning opportunity
+        // Learning opportunity: point at the closest past interaction, if there is one
+        String precedent = findPrecedent(command);
         learnFromUnknownCommand(command);
+        if (precedent != null) {
+            return "I'm not quite sure how to handle that, Sir. The closest thing on record: " + precedent;
+        }
         return "I'm not quite sure how to handle that, Sir. Shall I add it to my learning queue?";
     }
     
     private void startContinuousLearning() {
         learningService.scheduleAtFixedRate(() -> {
             optimizeNeuralWeights();
-            cleanKnowledgeBase();
+            snapshotWeights();
+            trimKnowledgeLog();
         }, 1, 60, TimeUnit.MINUTES);
     }
     
     public void learnFromInteraction(String command, String response) {
-        learningWeights.merge(command, 1, Integer::sum);
-        knowledgeBase.add("Command: " + command + " | Response: " + response);
+        recordWeight(command);
+        remember("Command: " + command + " | Response: " + response);
     }
     
     public void addTrainingData(String experience) {
-        knowledgeBase.add("Experience: " + experience);
+        remember("Experience: " + experience);
     }
     
     private void learnFromUnknownCommand(String command) {
-        knowledgeBase.add("Unknown: " + command);
+        remember("Unknown: " + command);
         // In a full implementation, this would trigger a learning sequence
     }
     
-    private void optimizeNeuralWeights() {
-        // Simulated neural weight optimization
-        learningWeights.entrySet().removeIf(entry -> entry.getValue() < 1);
+    private void remember(String text) {
+        long timestamp = System.currentTimeMillis();
+        knowledgeIndex.append(text, timestamp);
+        KnowledgeStore store = knowledgeStore;
+        if (store != null) {
+            try {
+                store.recordKnowledge(text, timestamp);
+            } catch (IOException e) {
+                storeFailed(store, e);
+            }
+        }
+    }
+    
+    private void recordWeight(String command) {
+        KnowledgeStore store = knowledgeStore;
+        if (store == null) {
+            learningWeights.add(command, 1);
+            return;
+        }
+        try {
+            if (store.recordWeight(command, 1, () -> learningWeights.add(command, 1))) {
+                learningService.execute(this::snapshotWeights);
+            }
+        } catch (IOException e) {
+            storeFailed(store, e); // the weight was still applied in memory
+        }
+    }
+    
+    // A log write failed: keep serving from memory rather than failing every command
+    private synchronized void storeFailed(KnowledgeStore store, IOException e) {
+        if (knowledgeStore != store) return; // already reported
+        knowledgeStore = null;
+        System.err.println("Knowledge store failed, running in memory from now on: " + e.getMessage());
+        try {
+            store.close();
+        } catch (IOException closeFailure) {
+            // Nothing more to save; the failure was reported above
+        }
+    }
+    
+    // Returns false if no snapshot was written
+    private boolean snapshotWeights() {
+        KnowledgeStore store = knowledgeStore;
+        if (store == null) return false;
+        try {
+            // Only the heavy hitters persist; the long tail is rebuilt from new traffic
+            store.snapshotWeights(() -> {
+                Map<String, Integer> weights = new HashMap<>();
+                for (FrequencySketch.HeavyHitter hitter : learningWeights.getHeavyHitters()) {
+                    weights.put(hitter.getKey(), Math.round(hitter.getCount()));
+                }
+                return weights;
+            });
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to snapshot learning weights: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Without this the knowledge log grows forever, though startup only reads the ring's worth
+    private void trimKnowledgeLog() {
+        KnowledgeStore store = knowledgeStore;
+        if (store == null) return;
+        try {
+            store.trimKnowledge(knowledgeBase.capacity());
+        } catch (IOException e) {
+            System.err.println("Failed to trim knowledge log: " + e.getMessage());
+        }
     }
     
-    private void cleanKnowledgeBase() {
-        if (knowledgeBase.size() > 1000) {
-            knowledgeBase.subList(0, 500).clear(); // Keep most recent 500 entries
+    private String findPrecedent(String command) {
+        for (KnowledgeIndex.Hit hit : knowledgeIndex.search(command, 5)) {
+            if (hit.getEntry().getText().startsWith("Command: ")) {
+                return hit.getEntry().getText();
+            }
+        }
+        return null;
+    }
+    
+    public List<KnowledgeIndex.Hit> searchKnowledge(String query, int limit) {
+        return knowledgeIndex.search(query, limit);
+    }
+    
+    private void optimizeNeuralWeights() {
+        // Age all weights so recent habits outrank old ones, forgetting commands that fade out
+        int forgotten = learningWeights.decay(WEIGHT_DECAY, MIN_WEIGHT);
+        if (forgotten > 0) {
+            System.out.println("Learning weights decayed, " + forgotten + " stale commands forgotten");
         }
     }
     
+    /** Most frequently used commands, most frequent first, in O(k) for the tracked k. */
+    public List<FrequencySketch.HeavyHitter> getMostFrequentCommands(int limit) {
+        return learningWeights.getMostFrequent(limit);
+    }
+    
     // Command handlers
     private String handleStatusRequest(String command) {
         return "All systems operational. Core functions at 100% efficiency.";
@@ -130,14 +285,64 @@ public class NeuralNetwork {
         return "Global threat level: MODERATE. Local threats: None detected.";
     }
     
+    public KnowledgeBase getKnowledgeBase() {
+        return knowledgeBase;
+    }
+    
     public String getStatus() {
         return "Neural Network: " + knowledgeBase.size() + " knowledge entries, " + 
                commandRegistry.size() + " commands learned";
     }
     
     public void saveKnowledgeBase() {
-        // Save to file/database
-        System.out.println("Neural network state saved.");
+        KnowledgeStore store = knowledgeStore;
+        if (store == null) {
+            System.out.println("Neural network state held in memory only.");
+            return;
+        }
+        boolean snapshotted = snapshotWeights();
+        try {
+            store.flush();
+            trimKnowledgeLog();
+            if (snapshotted) {
+                System.out.println("Neural network state saved. " + store.getStatus());
+            } else {
+                System.err.println("Neural network knowledge saved, but learning weights were not. " + store.getStatus());
+            }
+        } catch (IOException e) {
+            storeFailed(store, e);
+            System.err.println("Neural network state NOT saved: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while saving neural network state");
+        }
+    }
+    
+    /**
+     * Stops background learning and closes the knowledge store, releasing its log files and
+     * writer threads. Call saveKnowledgeBase() first; afterwards the network runs in memory.
+     */
+    public void shutdown() {
+        learningService.shutdown();
+        try {
+            if (!learningService.awaitTermination(5, TimeUnit.SECONDS)) {
+                learningService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            learningService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        KnowledgeStore store;
+        synchronized (this) {
+            store = knowledgeStore;
+            knowledgeStore = null;
+        }
+        if (store == null) return;
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close knowledge store: " + e.getMessage());
+        }
     }
     
     public void runTacticalSimulation(String scenario) {
@@ -147,12 +352,21 @@ public class NeuralNetwork {
     
     public String correlateData(Object... dataSources) {
         // Advanced data correlation algorithm
-        return "Data correlation complete. Pattern analysis suggests optimal engagement strategy.";
+        StringBuilder query = new StringBuilder();
+        for (Object source : dataSources) {
+            if (source != null) query.append(source).append(' ');
+        }
+        List<KnowledgeIndex.Hit> related = knowledgeIndex.search(query.toString(), 3);
+        String result = "Data correlation complete. Pattern analysis suggests optimal engagement strategy.";
+        if (!related.isEmpty()) {
+            result += " " + related.size() + " related records on file, most relevant: " + related.get(0).getEntry().getText();
+        }
+        return result;
     }
     
     // Functional interface for command handlers
     @FunctionalInterface
-    private interface CommandHandler {
+    public interface CommandHandler {
         String handle(String command);
     }
 }
\ No newline at end of file
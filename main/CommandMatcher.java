@@ -0,0 +1,171 @@
+package com.starkindustries.jarvis.ai;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick automaton over a fixed set of command keywords. One pass over the input
+ * finds every keyword occurrence; the best hit is the longest keyword, then one that sits
+ * on word boundaries, then the leftmost. Instances are immutable - build a new one when
+ * the keyword set changes.
+ *
+ * For a handful of keywords a plain indexOf scan is faster than walking the automaton, so
+ * sets up to SCAN_MAX_KEYWORDS are scanned (same ranking) and no automaton is built.
+ */
+public class CommandMatcher {
+    private static final int ROOT = 0;
+    public static final int SCAN_MAX_KEYWORDS = 32; // bench/CommandMatcherBench crossover, with margin
+
+    private final String[] keywords;
+    private final boolean scan;
+
+    // Trie nodes: sorted outgoing characters and their targets per node
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[] longestOutput; // longest keyword that is a suffix of this node, or -1
+
+    public CommandMatcher(Collection<String> keywordSet) {
+        this(keywordSet, SCAN_MAX_KEYWORDS);
+    }
+
+    // scanMaxKeywords lets the bench force either strategy
+    CommandMatcher(Collection<String> keywordSet, int scanMaxKeywords) {
+        this.keywords = keywordSet.toArray(new String[0]);
+        this.scan = keywords.length <= scanMaxKeywords;
+        if (scan) {
+            edgeChars = null;
+            edgeTargets = null;
+            fail = null;
+            longestOutput = null;
+            return;
+        }
+
+        // Build the trie with growable per-node maps, then freeze into sorted arrays
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        children.add(new TreeMap<>());
+        terminal.add(-1);
+        for (int k = 0; k < keywords.length; k++) {
+            int node = ROOT;
+            for (char c : keywords[k].toCharArray()) {
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    terminal.add(-1);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            terminal.set(node, k);
+        }
+
+        int nodeCount = children.size();
+        edgeChars = new char[nodeCount][];
+        edgeTargets = new int[nodeCount][];
+        for (int n = 0; n < nodeCount; n++) {
+            TreeMap<Character, Integer> edges = children.get(n);
+            edgeChars[n] = new char[edges.size()];
+            edgeTargets[n] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[n][i] = edge.getKey();
+                edgeTargets[n][i++] = edge.getValue();
+            }
+        }
+
+        // Breadth-first failure links; a node's longest output falls back to its failure node's
+        fail = new int[nodeCount];
+        longestOutput = new int[nodeCount];
+        longestOutput[ROOT] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[ROOT]) {
+            fail[target] = ROOT;
+            longestOutput[target] = terminal.get(target);
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+                fail[child] = step(fail[node], c);
+                longestOutput[child] = terminal.get(child) >= 0 ? terminal.get(child) : longestOutput[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    private int child(int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    // Follows failure links until c can be consumed
+    private int step(int node, char c) {
+        while (true) {
+            int next = child(node, c);
+            if (next >= 0) return next;
+            if (node == ROOT) return ROOT;
+            node = fail[node];
+        }
+    }
+
+    /**
+     * Returns the best keyword occurring in text, or null if none does. text is expected
+     * to be normalized the same way as the keywords (lower case).
+     */
+    public String findBest(String text) {
+        return scan ? scanBest(text) : walkBest(text);
+    }
+
+    private String walkBest(String text) {
+        int best = -1;
+        boolean bestWhole = false;
+        int node = ROOT;
+
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, text.charAt(i));
+            int hit = longestOutput[node];
+            if (hit < 0) continue;
+
+            int length = keywords[hit].length();
+            boolean whole = isBoundary(text, i - length) && isBoundary(text, i + 1);
+            if (best < 0 || length > keywords[best].length()
+                    || (length == keywords[best].length() && whole && !bestWhole)) {
+                best = hit;
+                bestWhole = whole;
+            }
+        }
+        return best >= 0 ? keywords[best] : null;
+    }
+
+    // Every occurrence of every keyword, ranked as in walkBest: longest, then whole word, then leftmost
+    private String scanBest(String text) {
+        int best = -1, bestStart = 0;
+        boolean bestWhole = false;
+        for (int k = 0; k < keywords.length; k++) {
+            int length = keywords[k].length();
+            if (best >= 0 && length < keywords[best].length()) continue;
+            for (int start = text.indexOf(keywords[k]); start >= 0; start = text.indexOf(keywords[k], start + 1)) {
+                boolean whole = isBoundary(text, start - 1) && isBoundary(text, start + length);
+                if (best < 0 || length > keywords[best].length()
+                        || (whole && !bestWhole) || (whole == bestWhole && start < bestStart)) {
+                    best = k;
+                    bestStart = start;
+                    bestWhole = whole;
+                }
+            }
+        }
+        return best >= 0 ? keywords[best] : null;
+    }
+
+    // True if position sits outside a word (string edge or a non-letter/digit on that side)
+    private static boolean isBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    public int getKeywordCount() {
+        return keywords.length;
+    }
+}
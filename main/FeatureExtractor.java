@@ -0,0 +1,202 @@
+package com.starkindustries.jarvis.voice;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * MFCC front end for 16 kHz audio: pre-emphasis, 25 ms Hamming window every 10 ms, 512 point
+ * real FFT, 26 band mel filterbank, log and DCT down to 13 coefficients per frame. All tables
+ * are shared and precomputed; each extractor owns its scratch arrays, so extraction does not
+ * allocate. An extractor is not thread safe - use one per stream or thread.
+ */
+public class FeatureExtractor {
+    public static final int SAMPLE_RATE = 16000;
+    public static final int FRAME_LENGTH = 400; // 25 ms
+    public static final int HOP_LENGTH = 160;   // 10 ms
+    public static final int FFT_SIZE = 512;
+    public static final int MEL_BANDS = 26;
+    public static final int COEFFICIENTS = 13;
+
+    private static final int HALF = FFT_SIZE / 2;
+    private static final int BINS = HALF + 1;
+    private static final float PRE_EMPHASIS = 0.97f;
+
+    // Shared tables
+    private static final float[] WINDOW = new float[FRAME_LENGTH];
+    private static final float[] HALF_COS = new float[HALF / 2], HALF_SIN = new float[HALF / 2]; // 256 point complex FFT
+    private static final float[] SPLIT_COS = new float[BINS], SPLIT_SIN = new float[BINS];      // real FFT post-processing
+    private static final int[] BIT_REVERSE = new int[HALF];
+    private static final int[] MEL_START = new int[MEL_BANDS];
+    private static final float[][] MEL_WEIGHTS = new float[MEL_BANDS][];
+    private static final float[][] DCT = new float[COEFFICIENTS][MEL_BANDS];
+
+    static {
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            WINDOW[i] = (float) (0.54 - 0.46 * Math.cos(2 * Math.PI * i / (FRAME_LENGTH - 1)));
+        }
+        for (int i = 0; i < HALF / 2; i++) {
+            HALF_COS[i] = (float) Math.cos(2 * Math.PI * i / HALF);
+            HALF_SIN[i] = (float) -Math.sin(2 * Math.PI * i / HALF);
+        }
+        for (int k = 0; k < BINS; k++) {
+            SPLIT_COS[k] = (float) Math.cos(2 * Math.PI * k / FFT_SIZE);
+            SPLIT_SIN[k] = (float) Math.sin(2 * Math.PI * k / FFT_SIZE);
+        }
+        int bits = Integer.numberOfTrailingZeros(HALF);
+        for (int i = 0; i < HALF; i++) {
+            BIT_REVERSE[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+
+        // Triangular filters evenly spaced on the mel scale between 0 Hz and Nyquist
+        double maxMel = hzToMel(SAMPLE_RATE / 2.0);
+        double[] edges = new double[MEL_BANDS + 2];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = melToHz(maxMel * i / (MEL_BANDS + 1)) * FFT_SIZE / SAMPLE_RATE;
+        }
+        for (int band = 0; band < MEL_BANDS; band++) {
+            double left = edges[band], center = edges[band + 1], right = edges[band + 2];
+            int start = (int) Math.ceil(left), end = Math.min(BINS - 1, (int) Math.floor(right));
+            MEL_START[band] = start;
+            MEL_WEIGHTS[band] = new float[Math.max(0, end - start + 1)];
+            for (int bin = start; bin <= end; bin++) {
+                double weight = bin <= center ? (bin - left) / (center - left) : (right - bin) / (right - center);
+                MEL_WEIGHTS[band][bin - start] = (float) Math.max(0, weight);
+            }
+        }
+
+        for (int c = 0; c < COEFFICIENTS; c++) {
+            for (int band = 0; band < MEL_BANDS; band++) {
+                DCT[c][band] = (float) (Math.sqrt(2.0 / MEL_BANDS) * Math.cos(Math.PI * c * (band + 0.5) / MEL_BANDS));
+            }
+        }
+    }
+
+    private static double hzToMel(double hz) {
+        return 2595 * Math.log10(1 + hz / 700);
+    }
+
+    private static double melToHz(double mel) {
+        return 700 * (Math.pow(10, mel / 2595) - 1);
+    }
+
+    // Per-extractor scratch
+    private final float[] frame = new float[FFT_SIZE];
+    private final float[] re = new float[HALF], im = new float[HALF];
+    private final float[] power = new float[BINS];
+    private final float[] melEnergy = new float[MEL_BANDS];
+    private float[] samples = new float[0]; // grows to the longest utterance seen
+
+    public static int frameCount(int sampleCount) {
+        return sampleCount < FRAME_LENGTH ? 0 : 1 + (sampleCount - FRAME_LENGTH) / HOP_LENGTH;
+    }
+
+    /**
+     * Extracts MFCCs for a whole speech segment, one row of COEFFICIENTS values per frame.
+     * Returns out, or a larger replacement if it was too small, so callers should keep
+     * passing back the returned array; frameCount(segment.getSampleCount()) rows are valid.
+     */
+    public float[] extract(AudioCapture.SpeechSegment segment, float[] out) {
+        int count = segment.getSampleCount();
+        if (samples.length < count) {
+            samples = new float[count];
+        }
+        segment.copySamples(samples);
+        int frames = frameCount(count);
+        if (out == null || out.length < frames * COEFFICIENTS) {
+            out = new float[frames * COEFFICIENTS];
+        }
+        extract(samples, 0, count, out, 0);
+        return out;
+    }
+
+    /** Extracts every full frame of samples[offset, offset+length) into out; returns the frame count. */
+    public int extract(float[] input, int offset, int length, float[] out, int outOffset) {
+        int frames = frameCount(length);
+        for (int f = 0; f < frames; f++) {
+            extractFrame(input, offset + f * HOP_LENGTH, out, outOffset + f * COEFFICIENTS);
+        }
+        return frames;
+    }
+
+    /** Computes the COEFFICIENTS MFCCs of the FRAME_LENGTH samples starting at offset. */
+    public void extractFrame(float[] input, int offset, float[] out, int outOffset) {
+        // Pre-emphasis and window, zero padded to the FFT size
+        float previous = offset > 0 ? input[offset - 1] : 0f;
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            float sample = input[offset + i];
+            frame[i] = (sample - PRE_EMPHASIS * previous) * WINDOW[i];
+            previous = sample;
+        }
+        Arrays.fill(frame, FRAME_LENGTH, FFT_SIZE, 0f);
+
+        powerSpectrum();
+
+        for (int band = 0; band < MEL_BANDS; band++) {
+            float[] weights = MEL_WEIGHTS[band];
+            int start = MEL_START[band];
+            float sum = 0f;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i] * power[start + i];
+            }
+            melEnergy[band] = (float) Math.log(Math.max(sum, 1e-10f));
+        }
+
+        for (int c = 0; c < COEFFICIENTS; c++) {
+            float[] basis = DCT[c];
+            float sum = 0f;
+            for (int band = 0; band < MEL_BANDS; band++) {
+                sum += basis[band] * melEnergy[band];
+            }
+            out[outOffset + c] = sum;
+        }
+    }
+
+    // Real FFT of frame via a half-size complex FFT over (even, odd) sample pairs
+    private void powerSpectrum() {
+        for (int i = 0; i < HALF; i++) {
+            int j = BIT_REVERSE[i];
+            re[j] = frame[2 * i];
+            im[j] = frame[2 * i + 1];
+        }
+
+        for (int size = 2; size <= HALF; size <<= 1) {
+            int halfSize = size >> 1, step = HALF / size;
+            for (int start = 0; start < HALF; start += size) {
+                for (int k = 0; k < halfSize; k++) {
+                    float wr = HALF_COS[k * step], wi = HALF_SIN[k * step];
+                    int a = start + k, b = a + halfSize;
+                    float tr = re[b] * wr - im[b] * wi;
+                    float ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+
+        // Split the packed spectrum into the real signal's bins 0..N/2
+        for (int k = 0; k <= HALF; k++) {
+            int m = k == 0 || k == HALF ? 0 : HALF - k;
+            int n = k == HALF ? 0 : k;
+            float a = re[n], b = im[n], c = re[m], d = im[m];
+            float evenRe = (a + c) * 0.5f, evenIm = (b - d) * 0.5f;
+            float oddRe = (b + d) * 0.5f, oddIm = (c - a) * 0.5f;
+            float cos = SPLIT_COS[k], sin = SPLIT_SIN[k];
+            float xr = evenRe + cos * oddRe + sin * oddIm;
+            float xi = evenIm + cos * oddIm - sin * oddRe;
+            power[k] = xr * xr + xi * xi;
+        }
+    }
+
+    private static final ThreadLocal<FeatureExtractor> PER_THREAD = ThreadLocal.withInitial(FeatureExtractor::new);
+
+    /**
+     * Extracts many independent streams in parallel, one extractor per worker thread.
+     * outputs[i] must hold frameCount(streams[i].length) * COEFFICIENTS values.
+     */
+    public static void extractAll(float[][] streams, float[][] outputs) {
+        IntStream.range(0, streams.length).parallel().forEach(i ->
+            PER_THREAD.get().extract(streams[i], 0, streams[i].length, outputs[i], 0));
+    }
+}
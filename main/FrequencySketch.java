@@ -0,0 +1,225 @@
+package com.starkindustries.jarvis.ai;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fixed-memory command frequency tracker: a count-min sketch estimates how often any key
+ * has been seen, and a min-heap keeps the k keys with the highest estimates. Memory is
+ * depth * width counters plus k heap entries however many distinct keys arrive. Each row
+ * has its own random seed, so two keys that share a counter in one row are no more likely
+ * to share one in the next, and an adversary cannot pick keys that collide on purpose.
+ * Counters are floats so decay() can age everything by a common factor, which keeps the
+ * heap order intact.
+ */
+public class FrequencySketch {
+    private static final int DEPTH = 4;
+
+    public static final class HeavyHitter {
+        private final String key;
+        private final float count;
+
+        private HeavyHitter(String key, float count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        public String getKey() { return key; }
+        public float getCount() { return count; }
+
+        @Override
+        public String toString() {
+            return String.format("%s=%.1f", key, count);
+        }
+    }
+
+    private final float[] counters; // DEPTH rows of width, row-major
+    private final int width, mask;
+    private final long seed;
+    private final long[] rowSeeds = new long[DEPTH];
+
+    // Min-heap on count, with each key's heap slot for in-place updates
+    private final String[] heapKeys;
+    private final float[] heapCounts;
+    private final Map<String, Integer> heapSlots;
+    private int heapSize;
+    private final int[] rowIndex = new int[DEPTH]; // scratch, guarded by this
+
+    /**
+     * @param width counters per row, rounded up to a power of two; the overestimate of any
+     *              key is at most about e / width of the total count with high probability
+     * @param k     number of heavy hitters tracked
+     */
+    public FrequencySketch(int width, int k) {
+        if (width <= 0 || k <= 0) {
+            throw new IllegalArgumentException("Sketch width and k must be positive: " + width + ", " + k);
+        }
+        this.width = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.mask = this.width - 1;
+        this.counters = new float[DEPTH * this.width];
+        this.seed = ThreadLocalRandom.current().nextLong();
+        for (int row = 0; row < DEPTH; row++) {
+            rowSeeds[row] = ThreadLocalRandom.current().nextLong();
+        }
+        this.heapKeys = new String[k];
+        this.heapCounts = new float[k];
+        this.heapSlots = new HashMap<>(k * 2);
+    }
+
+    /** Adds count occurrences of key and returns its new estimated frequency. */
+    public synchronized float add(String key, float count) {
+        if (count <= 0) return estimate(key);
+
+        // Conservative update: only raise the counters that are at the current minimum
+        long hash = mix(key);
+        float min = Float.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            rowIndex[row] = row * width + index(hash, row);
+            min = Math.min(min, counters[rowIndex[row]]);
+        }
+        float estimate = min + count;
+        for (int row = 0; row < DEPTH; row++) {
+            if (counters[rowIndex[row]] < estimate) {
+                counters[rowIndex[row]] = estimate;
+            }
+        }
+
+        Integer slot = heapSlots.get(key);
+        if (slot != null) {
+            heapCounts[slot] = estimate;
+            siftDown(slot);
+        } else if (heapSize < heapKeys.length) {
+            heapKeys[heapSize] = key;
+            heapCounts[heapSize] = estimate;
+            heapSlots.put(key, heapSize);
+            siftUp(heapSize++);
+        } else if (estimate > heapCounts[0]) {
+            heapSlots.remove(heapKeys[0]);
+            heapKeys[0] = key;
+            heapCounts[0] = estimate;
+            heapSlots.put(key, 0);
+            siftDown(0);
+        }
+        return estimate;
+    }
+
+    /** Estimated frequency of key; never below the true (decayed) count. */
+    public synchronized float estimate(String key) {
+        long hash = mix(key);
+        float min = Float.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[row * width + index(hash, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Multiplies every count by factor (0 < factor <= 1) and drops heavy hitters whose count
+     * falls below minCount. Returns the number dropped.
+     */
+    public synchronized int decay(float factor, float minCount) {
+        if (factor <= 0 || factor > 1) {
+            throw new IllegalArgumentException("Decay factor must be in (0, 1]: " + factor);
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] *= factor;
+        }
+        for (int i = 0; i < heapSize; i++) {
+            heapCounts[i] *= factor;
+        }
+        // The root is always the smallest, so pruning pops until it clears the bar
+        int dropped = 0;
+        while (heapSize > 0 && heapCounts[0] < minCount) {
+            removeRoot();
+            dropped++;
+        }
+        return dropped;
+    }
+
+    /** The tracked heavy hitters in heap order (unsorted), copied in O(k). */
+    public synchronized List<HeavyHitter> getHeavyHitters() {
+        List<HeavyHitter> hitters = new ArrayList<>(heapSize);
+        for (int i = 0; i < heapSize; i++) {
+            hitters.add(new HeavyHitter(heapKeys[i], heapCounts[i]));
+        }
+        return hitters;
+    }
+
+    /** Up to limit heavy hitters, most frequent first. */
+    public List<HeavyHitter> getMostFrequent(int limit) {
+        List<HeavyHitter> hitters = getHeavyHitters();
+        hitters.sort((a, b) -> Float.compare(b.count, a.count));
+        return hitters.size() > limit ? new ArrayList<>(hitters.subList(0, limit)) : hitters;
+    }
+
+    public synchronized int size() {
+        return heapSize;
+    }
+
+    /** Approximate bytes held, independent of how many distinct keys have been added. */
+    public int getMemoryFootprint() {
+        return counters.length * 4 + heapCounts.length * 4 + heapKeys.length * 64;
+    }
+
+    private long mix(String key) {
+        long hash = seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return (hash ^ (hash >>> 32)) * 0x9E3779B97F4A7C15L;
+    }
+
+    // Remixes the key hash with the row's seed (SplitMix64 finalizer). Deriving rows as
+    // h1 + row * h2 instead made keys that agree on the low bits of h1 and h2 collide in
+    // every row, so a one-off key could inherit a heavy hitter's count.
+    private int index(long hash, int row) {
+        long h = hash + rowSeeds[row];
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (h ^ (h >>> 31)) & mask;
+    }
+
+    private void removeRoot() {
+        heapSlots.remove(heapKeys[0]);
+        heapSize--;
+        heapKeys[0] = heapKeys[heapSize];
+        heapCounts[0] = heapCounts[heapSize];
+        heapKeys[heapSize] = null;
+        if (heapSize > 0) {
+            heapSlots.put(heapKeys[0], 0);
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapCounts[parent] <= heapCounts[i]) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1, right = left + 1;
+            if (left < heapSize && heapCounts[left] < heapCounts[smallest]) smallest = left;
+            if (right < heapSize && heapCounts[right] < heapCounts[smallest]) smallest = right;
+            if (smallest == i) return;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String key = heapKeys[a];
+        heapKeys[a] = heapKeys[b];
+        heapKeys[b] = key;
+        float count = heapCounts[a];
+        heapCounts[a] = heapCounts[b];
+        heapCounts[b] = count;
+        heapSlots.put(heapKeys[a], a);
+        heapSlots.put(heapKeys[b], b);
+    }
+}
@@ -0,0 +1,244 @@
+package com.starkindustries.jarvis.voice;
+
+import javax.sound.sampled.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * On-device keyword spotter. Each command keyword is enrolled from one or more recorded
+ * utterances; an incoming utterance is matched against every template with banded dynamic
+ * time warping over mean-normalized MFCCs, abandoning a template as soon as it cannot beat
+ * the best match so far. Utterances whose best distance exceeds the rejection threshold are
+ * not recognized. Recognition is single threaded and reuses its scratch arrays.
+ */
+public class KeywordSpotter {
+    public static final float DEFAULT_REJECT_DISTANCE = 6f;
+
+    private static final int C = FeatureExtractor.COEFFICIENTS;
+    private static final int FIRST_COEFFICIENT = 1; // c0 is overall loudness, which says nothing about the word
+    private static final float BAND_RATIO = 0.3f;
+
+    public static class Result {
+        private final String keyword;
+        private final float distance;
+        private final long nanos;
+
+        private Result(String keyword, float distance, long nanos) {
+            this.keyword = keyword;
+            this.distance = distance;
+            this.nanos = nanos;
+        }
+
+        public String getKeyword() { return keyword; }           // null if rejected
+        public float getDistance() { return distance; }
+        public double getLatencyMillis() { return nanos / 1_000_000.0; }
+    }
+
+    private static class Template {
+        final String keyword;
+        final float[] features;
+        final int frames;
+
+        Template(String keyword, float[] features, int frames) {
+            this.keyword = keyword;
+            this.features = features;
+            this.frames = frames;
+        }
+    }
+
+    private final List<Template> templates = new CopyOnWriteArrayList<>();
+    private final float rejectDistance;
+    private final FeatureExtractor extractor = new FeatureExtractor();
+
+    // Recognition scratch
+    private float[] query = new float[0];
+    private float[] previousRow = new float[0], currentRow = new float[0];
+    private float[] samples = new float[0];
+    private float[] features = new float[0];
+
+    public KeywordSpotter() {
+        this(DEFAULT_REJECT_DISTANCE);
+    }
+
+    public KeywordSpotter(float rejectDistance) {
+        this.rejectDistance = rejectDistance;
+    }
+
+    /** Adds a template for keyword from MFCC rows as produced by FeatureExtractor. */
+    public void enroll(String keyword, float[] mfcc, int frames) {
+        if (frames == 0) return;
+        float[] copy = Arrays.copyOf(mfcc, frames * C);
+        normalize(copy, frames);
+        templates.add(new Template(keyword.toLowerCase().trim(), copy, frames));
+    }
+
+    public void enroll(String keyword, Path wavFile) throws IOException, UnsupportedAudioFileException {
+        int count = readSamples(wavFile);
+        int frames = FeatureExtractor.frameCount(count);
+        ensureFeatures(frames);
+        extractor.extract(samples, 0, count, features, 0);
+        enroll(keyword, features, frames);
+    }
+
+    /**
+     * Enrolls every WAV in dir whose keyword is in vocabulary (all of them if vocabulary is
+     * null). File names are the keyword with spaces written as '-', optionally followed by
+     * '_' and a take number: team-status.wav, team-status_2.wav. Returns the keywords that
+     * still have no template.
+     */
+    public Set<String> enrollDirectory(Path dir, Collection<String> vocabulary) throws IOException {
+        Set<String> wanted = new TreeSet<>();
+        if (vocabulary != null) {
+            for (String keyword : vocabulary) wanted.add(keyword.toLowerCase().trim());
+        }
+        Set<String> missing = new TreeSet<>(wanted);
+        if (!Files.isDirectory(dir)) return missing;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.wav")) {
+            for (Path file : files) {
+                String keyword = keywordOf(file);
+                if (vocabulary != null && !wanted.contains(keyword)) continue;
+                try {
+                    enroll(keyword, file);
+                    missing.remove(keyword);
+                } catch (UnsupportedAudioFileException e) {
+                    System.err.println("Skipping template " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        return missing;
+    }
+
+    static String keywordOf(Path file) {
+        String name = file.getFileName().toString();
+        name = name.substring(0, name.length() - ".wav".length());
+        int take = name.lastIndexOf('_');
+        if (take > 0) name = name.substring(0, take);
+        return name.replace('-', ' ').toLowerCase();
+    }
+
+    public int getTemplateCount() {
+        return templates.size();
+    }
+
+    public Result recognize(AudioCapture.SpeechSegment segment) {
+        long start = System.nanoTime();
+        int count = segment.getSampleCount();
+        ensureSamples(count);
+        segment.copySamples(samples);
+        return recognizeSamples(count, start);
+    }
+
+    public Result recognize(Path wavFile) throws IOException, UnsupportedAudioFileException {
+        int count = readSamples(wavFile);
+        return recognizeSamples(count, System.nanoTime());
+    }
+
+    private Result recognizeSamples(int count, long start) {
+        int frames = FeatureExtractor.frameCount(count);
+        ensureFeatures(frames);
+        extractor.extract(samples, 0, count, features, 0);
+        return recognize(features, frames, start);
+    }
+
+    /** Matches MFCC rows against every template; the keyword is null if nothing is close enough. */
+    public Result recognize(float[] mfcc, int frames, long startNanos) {
+        if (frames == 0 || templates.isEmpty()) {
+            return new Result(null, Float.POSITIVE_INFINITY, System.nanoTime() - startNanos);
+        }
+        if (query.length < frames * C) {
+            query = new float[frames * C];
+        }
+        System.arraycopy(mfcc, 0, query, 0, frames * C);
+        normalize(query, frames);
+
+        String best = null;
+        float bestDistance = rejectDistance;
+        for (Template template : templates) {
+            float distance = dtw(query, frames, template.features, template.frames, bestDistance);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = template.keyword;
+            }
+        }
+        return new Result(best, best != null ? bestDistance : Float.POSITIVE_INFINITY, System.nanoTime() - startNanos);
+    }
+
+    // Cepstral mean normalization removes the channel / microphone colouring
+    private static void normalize(float[] mfcc, int frames) {
+        for (int c = 0; c < C; c++) {
+            float mean = 0f;
+            for (int f = 0; f < frames; f++) mean += mfcc[f * C + c];
+            mean /= frames;
+            for (int f = 0; f < frames; f++) mfcc[f * C + c] -= mean;
+        }
+    }
+
+    /**
+     * Banded DTW distance normalized by path length (n + m). Returns +inf as soon as every
+     * cell of a row already exceeds limit, since the final distance can only grow.
+     */
+    private float dtw(float[] a, int n, float[] b, int m, float limit) {
+        if (n > 2 * m || m > 2 * n) return Float.POSITIVE_INFINITY;
+        int band = Math.max(Math.abs(n - m), (int) (BAND_RATIO * Math.max(n, m)));
+        float abandon = limit * (n + m);
+
+        if (previousRow.length < m + 1) {
+            previousRow = new float[m + 1];
+            currentRow = new float[m + 1];
+        }
+        float[] previous = previousRow, current = currentRow;
+        Arrays.fill(previous, 0, m + 1, Float.POSITIVE_INFINITY);
+        previous[0] = 0f;
+
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - band), to = Math.min(m, i + band);
+            Arrays.fill(current, 0, m + 1, Float.POSITIVE_INFINITY);
+            float rowMin = Float.POSITIVE_INFINITY;
+            int aOffset = (i - 1) * C;
+            for (int j = from; j <= to; j++) {
+                int bOffset = (j - 1) * C;
+                float cost = 0f;
+                for (int c = FIRST_COEFFICIENT; c < C; c++) {
+                    float d = a[aOffset + c] - b[bOffset + c];
+                    cost += d * d;
+                }
+                cost = (float) Math.sqrt(cost);
+                // Diagonal steps count twice so every path has weight n + m
+                float diagonal = previous[j - 1] + 2 * cost;
+                float vertical = previous[j] + cost;
+                float horizontal = current[j - 1] + cost;
+                float value = Math.min(diagonal, Math.min(vertical, horizontal));
+                current[j] = value;
+                if (value < rowMin) rowMin = value;
+            }
+            if (rowMin > abandon) return Float.POSITIVE_INFINITY;
+            float[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m] / (n + m);
+    }
+
+    private int readSamples(Path wavFile) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream in = AudioCapture.openWav(wavFile)) {
+            byte[] pcm = in.readAllBytes();
+            int count = pcm.length / 2;
+            ensureSamples(count);
+            for (int i = 0; i < count; i++) {
+                samples[i] = (short) ((pcm[2 * i] & 0xFF) | (pcm[2 * i + 1] << 8)) / 32768f;
+            }
+            return count;
+        }
+    }
+
+    private void ensureSamples(int count) {
+        if (samples.length < count) samples = new float[count];
+    }
+
+    private void ensureFeatures(int frames) {
+        if (features.length < frames * C) features = new float[frames * C];
+    }
+}
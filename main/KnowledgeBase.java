@@ -0,0 +1,110 @@
+package com.starkindustries.jarvis.ai;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-capacity knowledge store. Every entry gets a monotonically increasing id and lands
+ * in slot id % capacity, overwriting the oldest entry in O(1). Appends are lock-free and may
+ * come from any thread; readers take consistent snapshots by checking that each slot still
+ * holds the id they expect, skipping entries overwritten or not yet published.
+ */
+public class KnowledgeBase {
+    public static final class Entry {
+        private final long id;
+        private final String text;
+        private final long timestamp;
+
+        private Entry(long id, String text, long timestamp) {
+            this.id = id;
+            this.text = text;
+            this.timestamp = timestamp;
+        }
+
+        public long getId() { return id; }
+        public String getText() { return text; }
+        public long getTimestamp() { return timestamp; }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private final int capacity;
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLong nextId = new AtomicLong();
+
+    public KnowledgeBase(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Knowledge base capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /** Appends text, evicting the oldest entry once full. Returns the new entry's id. */
+    public long append(String text) {
+        return append(text, System.currentTimeMillis());
+    }
+    
+    public long append(String text, long timestamp) {
+        long id = nextId.getAndIncrement();
+        Entry entry = new Entry(id, text, timestamp);
+        int slot = (int) (id % capacity);
+
+        // A writer that stalled for a full lap must not overwrite a newer entry
+        while (true) {
+            Entry current = slots.get(slot);
+            if (current != null && current.id > id) {
+                break;
+            }
+            if (slots.compareAndSet(slot, current, entry)) {
+                break;
+            }
+        }
+        return id;
+    }
+
+    /** Returns the entry with this id, or null if it has been evicted or is not yet visible. */
+    public Entry get(long id) {
+        if (id < 0 || id >= nextId.get()) return null;
+        Entry entry = slots.get((int) (id % capacity));
+        return entry != null && entry.id == id ? entry : null;
+    }
+
+    /** Visits live entries oldest first without locking or copying. */
+    public void forEach(Consumer<Entry> visitor) {
+        long end = nextId.get();
+        for (long id = Math.max(0, end - capacity); id < end; id++) {
+            Entry entry = slots.get((int) (id % capacity));
+            if (entry != null && entry.id == id) {
+                visitor.accept(entry);
+            }
+        }
+    }
+
+    /** Point-in-time copy of the live entries, oldest first. */
+    public List<Entry> snapshot() {
+        List<Entry> entries = new ArrayList<>(size());
+        forEach(entries::add);
+        return entries;
+    }
+
+    public int size() {
+        return (int) Math.min(nextId.get(), capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long getTotalAppended() {
+        return nextId.get();
+    }
+
+    public long getEvictedCount() {
+        return Math.max(0, nextId.get() - capacity);
+    }
+}
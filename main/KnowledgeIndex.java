@@ -0,0 +1,360 @@
+package com.starkindustries.jarvis.ai;
+
+import java.util.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Incremental inverted index with BM25 ranking over a KnowledgeBase. Entries are indexed as
+ * they are appended; posting lists stay sorted by entry id, so entries evicted from the ring
+ * (always the oldest) form a dead prefix that is cut off when the list is next touched and
+ * by a sweep once per ring lap. Queries never mutate the index and only take a read lock.
+ */
+public class KnowledgeIndex {
+    private static final float K1 = 1.2f, B = 0.75f;
+    private static final int MAX_SCAN = 4096; // postings scanned per term before switching to lookups
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on",
+        "or", "that", "the", "this", "to", "was", "with", "command", "response", "experience", "unknown"));
+
+    public static final class Hit {
+        private final KnowledgeBase.Entry entry;
+        private final float score;
+
+        private Hit(KnowledgeBase.Entry entry, float score) {
+            this.entry = entry;
+            this.score = score;
+        }
+
+        public KnowledgeBase.Entry getEntry() { return entry; }
+        public float getScore() { return score; }
+    }
+
+    // Sorted ids with term frequency and document length (kept inline so scoring reads
+    // sequentially); [head, size) is the live region
+    private static final class Postings {
+        long[] ids = new long[4];
+        int[] frequencies = new int[4];
+        int[] lengths = new int[4];
+        int head, size;
+
+        void add(long id, int frequency, int length) {
+            if (size == ids.length) {
+                if (head > 0 && head >= size / 2) {
+                    compact();
+                } else {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    frequencies = Arrays.copyOf(frequencies, size * 2);
+                    lengths = Arrays.copyOf(lengths, size * 2);
+                }
+            }
+            // Concurrent appenders can index slightly out of order; insert from the tail
+            int i = size++;
+            while (i > head && ids[i - 1] > id) {
+                ids[i] = ids[i - 1];
+                frequencies[i] = frequencies[i - 1];
+                lengths[i] = lengths[i - 1];
+                i--;
+            }
+            ids[i] = id;
+            frequencies[i] = frequency;
+            lengths[i] = length;
+        }
+
+        void prune(long minLiveId) {
+            while (head < size && ids[head] < minLiveId) head++;
+            if (head == size) {
+                head = size = 0;
+            }
+        }
+
+        void compact() {
+            int live = size - head;
+            System.arraycopy(ids, head, ids, 0, live);
+            System.arraycopy(frequencies, head, frequencies, 0, live);
+            System.arraycopy(lengths, head, lengths, 0, live);
+            head = 0;
+            size = live;
+            if (ids.length > 16 && live < ids.length / 4) {
+                ids = Arrays.copyOf(ids, ids.length / 2);
+                frequencies = Arrays.copyOf(frequencies, frequencies.length / 2);
+                lengths = Arrays.copyOf(lengths, lengths.length / 2);
+            }
+        }
+
+        // First index in [head, size) whose id is >= id
+        int lowerBound(long id) {
+            int low = head, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] < id) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+
+    private final KnowledgeBase knowledgeBase;
+    private final int capacity;
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Document lengths of live entries, in a ring parallel to the knowledge base, so the
+    // average length can be maintained as entries are evicted
+    private final long[] lengthIds;
+    private final int[] lengths;
+    private long totalLength, indexedDocuments, maxIndexedId = -1, nextSweep;
+
+    public KnowledgeIndex(KnowledgeBase knowledgeBase) {
+        this.knowledgeBase = knowledgeBase;
+        this.capacity = knowledgeBase.capacity();
+        this.lengthIds = new long[capacity];
+        this.lengths = new int[capacity];
+        Arrays.fill(lengthIds, -1);
+        this.nextSweep = capacity;
+    }
+
+    /** Appends text to the knowledge base and indexes it. Returns the entry id. */
+    public long append(String text) {
+        return append(text, System.currentTimeMillis());
+    }
+
+    public long append(String text, long timestamp) {
+        long id = knowledgeBase.append(text, timestamp);
+        index(id, text);
+        return id;
+    }
+
+    private void index(long id, String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = tokenize(text, token -> frequencies.merge(token, 1, Integer::sum));
+
+        lock.writeLock().lock();
+        try {
+            if (id > maxIndexedId) maxIndexedId = id;
+            long minLive = minLiveId();
+            if (id < minLive) return; // already evicted by faster appenders
+
+            int slot = (int) (id % capacity);
+            if (lengthIds[slot] >= 0) {
+                totalLength -= lengths[slot];
+                indexedDocuments--;
+            }
+            lengthIds[slot] = id;
+            lengths[slot] = length;
+            totalLength += length;
+            indexedDocuments++;
+
+            for (Map.Entry<String, Integer> term : frequencies.entrySet()) {
+                Postings postings = terms.computeIfAbsent(term.getKey(), k -> new Postings());
+                postings.prune(minLive);
+                postings.add(id, term.getValue(), length);
+            }
+
+            if (id >= nextSweep) {
+                sweep(minLive);
+                nextSweep = id + capacity;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long minLiveId() {
+        return maxIndexedId - capacity + 1;
+    }
+
+    // Drops dead prefixes from lists that have not been touched for a lap, and empty terms
+    private void sweep(long minLive) {
+        Iterator<Postings> iterator = terms.values().iterator();
+        while (iterator.hasNext()) {
+            Postings postings = iterator.next();
+            postings.prune(minLive);
+            if (postings.size == 0) {
+                iterator.remove();
+            } else if (postings.head > 0) {
+                postings.compact();
+            }
+        }
+    }
+
+    private interface TokenSink {
+        void accept(String token);
+    }
+
+    private static int tokenize(String text, TokenSink sink) {
+        int count = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i - start < 2) continue;
+            String token = text.substring(start, i).toLowerCase();
+            if (STOP_WORDS.contains(token)) continue;
+            sink.accept(token);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns up to limit live entries ranked by BM25 against query. Terms are visited rarest
+     * first; a term with more than MAX_SCAN live postings is only used to rescore candidates
+     * the rarer terms found (or, if it is the rarest, scanned over its newest MAX_SCAN
+     * entries), which keeps a query's cost bounded no matter how large the base grows.
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>();
+        tokenize(query, queryTerms::add);
+        if (queryTerms.isEmpty() || limit <= 0) return Collections.emptyList();
+
+        Accumulator scores = ACCUMULATOR.get();
+        scores.clear();
+        lock.readLock().lock();
+        try {
+            long minLive = minLiveId();
+            long documents = Math.max(1, indexedDocuments);
+            float averageLength = Math.max(1f, (float) totalLength / documents);
+
+            List<Postings> lists = new ArrayList<>();
+            List<Integer> starts = new ArrayList<>();
+            for (String term : queryTerms) {
+                Postings postings = terms.get(term);
+                if (postings == null) continue;
+                int start = postings.lowerBound(minLive);
+                if (start < postings.size) {
+                    lists.add(postings);
+                    starts.add(start);
+                }
+            }
+            Integer[] order = new Integer[lists.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingInt(i -> lists.get(i).size - starts.get(i)));
+
+            for (int o : order) {
+                Postings postings = lists.get(o);
+                int start = starts.get(o);
+                int documentFrequency = postings.size - start;
+                float idf = (float) Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+                if (documentFrequency <= MAX_SCAN || scores.count == 0) {
+                    for (int i = Math.max(start, postings.size - MAX_SCAN); i < postings.size; i++) {
+                        scores.add(postings.ids[i], termScore(postings.frequencies[i], postings.lengths[i], idf, averageLength));
+                    }
+                } else {
+                    for (int c = 0; c < scores.count; c++) {
+                        int slot = scores.used[c];
+                        long id = scores.keys[slot];
+                        int i = postings.lowerBound(id);
+                        if (i < postings.size && postings.ids[i] == id) {
+                            scores.values[slot] += termScore(postings.frequencies[i], postings.lengths[i], idf, averageLength);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Best limit candidates via a min-heap on the accumulator, then resolved against the ring
+        int[] heap = new int[Math.min(limit, scores.count)];
+        int heapSize = 0;
+        for (int c = 0; c < scores.count; c++) {
+            int slot = scores.used[c];
+            if (heapSize < heap.length) {
+                heap[heapSize++] = slot;
+                for (int i = heapSize - 1; i > 0 && scores.values[heap[i]] < scores.values[heap[(i - 1) / 2]]; i = (i - 1) / 2) {
+                    int swap = heap[i]; heap[i] = heap[(i - 1) / 2]; heap[(i - 1) / 2] = swap;
+                }
+            } else if (heapSize > 0 && scores.values[slot] > scores.values[heap[0]]) {
+                heap[0] = slot;
+                siftDown(heap, heapSize, scores.values);
+            }
+        }
+        List<Hit> hits = new ArrayList<>(heapSize);
+        while (heapSize > 0) {
+            int slot = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scores.values);
+            KnowledgeBase.Entry entry = knowledgeBase.get(scores.keys[slot]);
+            if (entry != null) hits.add(new Hit(entry, scores.values[slot]));
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    private static void siftDown(int[] heap, int size, float[] values) {
+        int i = 0;
+        while (true) {
+            int smallest = i, left = 2 * i + 1, right = left + 1;
+            if (left < size && values[heap[left]] < values[heap[smallest]]) smallest = left;
+            if (right < size && values[heap[right]] < values[heap[smallest]]) smallest = right;
+            if (smallest == i) return;
+            int swap = heap[i]; heap[i] = heap[smallest]; heap[smallest] = swap;
+            i = smallest;
+        }
+    }
+
+    // Per-thread open-addressed id -> score table, cleared through its list of used slots
+    private static final class Accumulator {
+        long[] keys = new long[1 << 14];
+        float[] values = new float[1 << 14];
+        boolean[] occupied = new boolean[1 << 14];
+        int[] used = new int[1 << 13];
+        int count;
+
+        void clear() {
+            for (int c = 0; c < count; c++) occupied[used[c]] = false;
+            count = 0;
+        }
+
+        void add(long key, float value) {
+            if (count * 2 >= keys.length) grow();
+            int mask = keys.length - 1;
+            int slot = (int) (((key ^ (key >>> 32)) * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (occupied[slot]) {
+                if (keys[slot] == key) {
+                    values[slot] += value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            occupied[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            used[count++] = slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            float[] oldValues = values;
+            int[] oldUsed = used;
+            int oldCount = count;
+            keys = new long[oldKeys.length * 2];
+            values = new float[oldKeys.length * 2];
+            occupied = new boolean[oldKeys.length * 2];
+            used = new int[oldKeys.length];
+            count = 0;
+            for (int c = 0; c < oldCount; c++) {
+                add(oldKeys[oldUsed[c]], oldValues[oldUsed[c]]);
+            }
+        }
+    }
+
+    private static final ThreadLocal<Accumulator> ACCUMULATOR = ThreadLocal.withInitial(Accumulator::new);
+
+    private static float termScore(int frequency, int length, float idf, float averageLength) {
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
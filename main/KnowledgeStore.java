@@ -0,0 +1,179 @@
+package com.starkindustries.jarvis.ai;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Durable state behind NeuralNetwork. Knowledge entries go to an append-only segmented log;
+ * learning weight increments go to a second log that is periodically compacted into a
+ * snapshot (weights.snap) recording the weight-log position it covers, after which the
+ * covered segments are deleted. Startup reads the snapshot, replays the weight records after
+ * it and only the last capacity knowledge records, so it does not slow down as history grows.
+ */
+public class KnowledgeStore implements Closeable {
+    private static final int SNAPSHOT_MAGIC = 0x4A574E53; // "JWNS"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long SNAPSHOT_INTERVAL = 100_000; // weight records between snapshots
+
+    @FunctionalInterface
+    public interface KnowledgeVisitor {
+        void visit(String text, long timestamp);
+    }
+
+    private final Path dir;
+    private final Path snapshotFile;
+    private final SegmentedLog knowledgeLog;
+    private final SegmentedLog weightLog;
+
+    // Weight updates and snapshots are serialized so a snapshot's log position is exact
+    private final Object weightLock = new Object();
+    private long weightRecordsSinceSnapshot;
+
+    public KnowledgeStore(Path dir) throws IOException {
+        this.dir = dir;
+        this.snapshotFile = dir.resolve("weights.snap");
+        this.knowledgeLog = new SegmentedLog(dir, "knowledge");
+        this.weightLog = new SegmentedLog(dir, "weights");
+    }
+
+    /** Throws IOException if the knowledge log has stopped after a write failure. */
+    public void recordKnowledge(String text, long timestamp) throws IOException {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        knowledgeLog.append(ByteBuffer.allocate(8 + utf8.length).putLong(timestamp).put(utf8).array());
+    }
+
+    /**
+     * Applies a weight change through apply and logs it in the same critical section.
+     * Returns true when enough records have built up that a snapshot is due. If the weight
+     * log has stopped, the change is still applied and IOException is thrown.
+     */
+    public boolean recordWeight(String command, int delta, Runnable apply) throws IOException {
+        byte[] utf8 = command.getBytes(StandardCharsets.UTF_8);
+        byte[] record = ByteBuffer.allocate(4 + utf8.length).putInt(delta).put(utf8).array();
+        synchronized (weightLock) {
+            apply.run();
+            weightLog.append(record);
+            return ++weightRecordsSinceSnapshot >= SNAPSHOT_INTERVAL;
+        }
+    }
+
+    /**
+     * Writes a compacted snapshot of the weights copy returns and drops the weight-log
+     * segments it makes redundant. Only what copy returns survives: NeuralNetwork passes just
+     * the sketch's heavy hitters, and deleteBefore drops the log records behind everything
+     * else, so counts for the long tail of commands are lost at each snapshot. The records
+     * before the snapshot's position are made durable first: otherwise a crash could leave
+     * the log shorter than that position, and records appended after recovery would reuse
+     * sequence numbers that replay skips.
+     */
+    public void snapshotWeights(Supplier<Map<String, Integer>> copy) throws IOException {
+        Map<String, Integer> weights;
+        long position;
+        synchronized (weightLock) {
+            weights = copy.get();
+            position = weightLog.getNextSequence();
+            weightRecordsSinceSnapshot = 0;
+        }
+        try {
+            weightLog.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted before snapshotting weights");
+        }
+
+        Path temp = dir.resolve("weights.snap.tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeByte(SNAPSHOT_VERSION);
+            out.writeLong(position);
+            out.writeInt(weights.size());
+            for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+                byte[] utf8 = weight.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+                out.writeInt(weight.getValue());
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        weightLog.deleteBefore(position);
+    }
+
+    /**
+     * Loads the newest capacity knowledge entries (oldest first) and the current weights.
+     * Returns the number of records read.
+     */
+    public long load(int capacity, KnowledgeVisitor knowledge, BiConsumer<String, Integer> weights) throws IOException {
+        long[] records = new long[1];
+
+        long from = Math.max(0, knowledgeLog.getNextSequence() - capacity);
+        knowledgeLog.replay(from, (sequence, record) -> {
+            long timestamp = record.getLong();
+            byte[] utf8 = new byte[record.remaining()];
+            record.get(utf8);
+            knowledge.visit(new String(utf8, StandardCharsets.UTF_8), timestamp);
+            records[0]++;
+        });
+
+        long position = 0;
+        if (Files.exists(snapshotFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 64 * 1024))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not a weight snapshot: " + snapshotFile);
+                }
+                int version = in.readUnsignedByte();
+                if (version != SNAPSHOT_VERSION) {
+                    throw new IOException("Unsupported weight snapshot version " + version);
+                }
+                position = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    byte[] utf8 = new byte[in.readInt()];
+                    in.readFully(utf8);
+                    weights.accept(new String(utf8, StandardCharsets.UTF_8), in.readInt());
+                    records[0]++;
+                }
+            }
+        }
+        weightLog.replay(position, (sequence, record) -> {
+            int delta = record.getInt();
+            byte[] utf8 = new byte[record.remaining()];
+            record.get(utf8);
+            weights.accept(new String(utf8, StandardCharsets.UTF_8), delta);
+            records[0]++;
+        });
+        return records[0];
+    }
+
+    /** Blocks until everything recorded so far is on disk; IOException if a log has stopped. */
+    public void flush() throws InterruptedException, IOException {
+        knowledgeLog.flush();
+        weightLog.flush();
+    }
+
+    /**
+     * Deletes knowledge-log segments holding only records older than the newest keep, which
+     * load() never reads. Only closed segments go, so nothing still being written is lost.
+     */
+    public void trimKnowledge(int keep) throws IOException {
+        knowledgeLog.deleteBefore(knowledgeLog.getNextSequence() - keep);
+    }
+
+    public String getStatus() {
+        return String.format("Knowledge store: %d knowledge records in %d segments, %d weight records pending snapshot, %d fsync batches",
+            knowledgeLog.getNextSequence(), knowledgeLog.getSegmentCount(), weightRecordsSinceSnapshot,
+            knowledgeLog.getBatchCount() + weightLog.getBatchCount());
+    }
+
+    @Override
+    public void close() throws IOException {
+        knowledgeLog.close();
+        weightLog.close();
+    }
+}
@@ -0,0 +1,227 @@
+package com.starkindustries.jarvis.voice;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Bounded multi-producer / single-consumer ring buffer. Producers claim a slot with a CAS on
+ * the tail and publish it through a per-slot sequence number (Vyukov style); the consumer
+ * owns the head. Nothing is allocated per element. When full, offer() either drops the new
+ * element or parks the producer until space frees up, depending on the overflow policy.
+ * close() may be called from any thread; after it, offers are refused and the consumer sees
+ * an empty buffer.
+ */
+public class MpscRingBuffer<E> {
+    public enum OverflowPolicy { DROP_NEWEST, BLOCK }
+
+    public enum WaitStrategy { BLOCKING, SPINNING, PARKING }
+
+    private static final long PARK_NANOS = 50_000;
+
+    private final int mask;
+    private final Object[] items;
+    private final long[] enqueueNanos;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile boolean closed;
+
+    private final OverflowPolicy overflowPolicy;
+    private final WaitStrategy waitStrategy;
+
+    // Blocking strategy: producers only take the lock when the consumer is actually waiting
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private volatile boolean consumerWaiting;
+
+    // Metrics; the latency figures are written by the consumer only
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long dequeued;
+    private volatile long totalLatencyNanos;
+    private volatile long maxLatencyNanos;
+
+    public MpscRingBuffer(int capacity, OverflowPolicy overflowPolicy, WaitStrategy waitStrategy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.items = new Object[size];
+        this.enqueueNanos = new long[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.overflowPolicy = overflowPolicy;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Adds an element from any thread. Returns false if it was dropped because the buffer
+     * was full (DROP_NEWEST) or the producer was interrupted while waiting (BLOCK).
+     */
+    public boolean offer(E item) {
+        while (!tryOffer(item)) {
+            if (closed) return false;
+            if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            LockSupport.parkNanos(PARK_NANOS);
+            if (Thread.currentThread().isInterrupted()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean tryOffer(E item) {
+        if (closed) return false;
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (difference < 0) {
+                return false; // slot still holds an element from the previous lap
+            } else {
+                position = tail.get();
+            }
+        }
+
+        items[index] = item;
+        enqueueNanos[index] = System.nanoTime();
+        sequences.set(index, position + 1);
+
+        if (consumerWaiting) {
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    /** Consumer only. Returns the next element, or null if the buffer is empty or closed. */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        if (closed) return null;
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        E item = (E) items[index];
+        items[index] = null;
+        long latency = System.nanoTime() - enqueueNanos[index];
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+
+        dequeued++;
+        totalLatencyNanos += latency;
+        if (latency > maxLatencyNanos) {
+            maxLatencyNanos = latency;
+        }
+        return item;
+    }
+
+    /** Consumer only. Waits up to timeout using the configured strategy; null on timeout. */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E item = poll();
+        if (item != null) return item;
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || closed) return null;
+            if (Thread.interrupted()) throw new InterruptedException();
+
+            switch (waitStrategy) {
+                case SPINNING:
+                    Thread.onSpinWait();
+                    break;
+                case PARKING:
+                    LockSupport.parkNanos(Math.min(remaining, PARK_NANOS));
+                    break;
+                case BLOCKING:
+                    lock.lock();
+                    try {
+                        consumerWaiting = true;
+                        // Re-check after publishing the flag so a concurrent offer cannot be missed
+                        if (isEmpty() && !closed) {
+                            notEmpty.awaitNanos(remaining);
+                        }
+                    } finally {
+                        consumerWaiting = false;
+                        lock.unlock();
+                    }
+                    break;
+            }
+
+            item = poll();
+            if (item != null) return item;
+        }
+    }
+
+    private boolean isEmpty() {
+        long position = head;
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    /** Consumer only. Discards everything currently queued. */
+    public void clear() {
+        while (poll() != null) {
+            // drain
+        }
+    }
+
+    /**
+     * Any thread. Refuses further offers, discards what is queued (the consumer's polls return
+     * null from now on) and wakes a consumer blocked in poll(timeout). Unlike clear(), this
+     * never moves the head, so it cannot race the consumer.
+     */
+    public void close() {
+        closed = true;
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int size() {
+        if (closed) return 0;
+        return (int) Math.max(0, Math.min(tail.get() - head, mask + 1));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getDequeuedCount() {
+        return dequeued;
+    }
+
+    public double getAverageLatencyMillis() {
+        long count = dequeued;
+        return count > 0 ? totalLatencyNanos / 1_000_000.0 / count : 0.0;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos / 1_000_000.0;
+    }
+}
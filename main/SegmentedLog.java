@@ -0,0 +1,356 @@
+package com.starkindustries.jarvis.ai;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record log split into segment files named after the sequence number of their
+ * first record (prefix-00000000000000000000.log). Records are length prefixed and
+ * checksummed. Appends are queued and written by one writer thread, which drains whatever
+ * has accumulated and fsyncs once per batch (group commit). Reads open only the segments
+ * that hold the requested range, so replaying a tail costs the same however long the
+ * history is. Segments are read with plain channel reads, never memory-mapped: a mapping
+ * stays open until the buffer is garbage collected, and on Windows a mapped file can be
+ * neither truncated nor deleted. If a write fails the writer stops, and every later append() and flush()
+ * throws an IOException naming the original failure, so callers can fall back rather
+ * than lose records silently.
+ */
+public class SegmentedLog implements Closeable {
+    private static final int SEGMENT_BYTES = 16 * 1024 * 1024;
+    private static final int HEADER_BYTES = 8; // int length, int crc
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long sequence, ByteBuffer record);
+    }
+
+    private final Path dir;
+    private final String prefix;
+    private final TreeMap<Long, Path> segments = new TreeMap<>(); // first sequence -> file
+    private final LinkedBlockingQueue<byte[]> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // Writer state
+    private FileChannel channel;
+    private long segmentBytes;
+    private volatile long nextSequence;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(256 * 1024);
+    private final CRC32 crc = new CRC32();
+
+    // Group commit bookkeeping, guarded by this
+    private long submitted, durable;
+    private volatile boolean closed;
+    private volatile IOException failure; // set once if the writer stops on an I/O error
+    private long batches;
+
+    public SegmentedLog(Path dir, String prefix) throws IOException {
+        this.dir = dir;
+        this.prefix = prefix;
+        Files.createDirectories(dir);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "-*.log")) {
+            for (Path file : files) {
+                segments.put(firstSequenceOf(file), file);
+            }
+        }
+        recoverTail();
+        submitted = durable = nextSequence;
+
+        writer = new Thread(this::writeLoop, "JARVIS-Log-" + prefix);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Counts the records of the newest segment and cuts off a torn final record, if any
+    private void recoverTail() throws IOException {
+        if (segments.isEmpty()) {
+            nextSequence = 0;
+            openSegment(0);
+            return;
+        }
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        long count = 0;
+        long validBytes;
+        try (FileChannel read = FileChannel.open(last.getValue(), StandardOpenOption.READ)) {
+            ByteBuffer data = readFrom(read, 0);
+            while (readRecord(data, true) != null) count++;
+            validBytes = data.position();
+        }
+        channel = FileChannel.open(last.getValue(), StandardOpenOption.WRITE);
+        if (channel.size() > validBytes) {
+            System.err.println("Truncating torn record at " + last.getValue() + ":" + validBytes);
+            channel.truncate(validBytes);
+        }
+        channel.position(validBytes);
+        segmentBytes = validBytes;
+        nextSequence = last.getKey() + count;
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        Path file = dir.resolve(String.format("%s-%020d.log", prefix, firstSequence));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        segmentBytes = channel.size();
+        synchronized (segments) {
+            segments.put(firstSequence, file);
+        }
+    }
+
+    /**
+     * Queues a record and returns the sequence number it will be written under; it is
+     * durable once a later flush() returns. Throws IOException if an earlier write failed.
+     */
+    public long append(byte[] record) throws IOException {
+        if (record.length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Record too large: " + record.length + " bytes");
+        }
+        synchronized (this) {
+            checkFailure();
+            if (closed) throw new IllegalStateException("Log closed");
+            // Queue under the lock so sequence numbers follow queue order
+            pending.add(record);
+            return submitted++;
+        }
+    }
+
+    /**
+     * Blocks until every record appended before this call has been written and fsynced.
+     * Throws IOException if the writer failed first, since those records never will be.
+     */
+    public synchronized void flush() throws InterruptedException, IOException {
+        long target = submitted;
+        while (durable < target && failure == null && writer.isAlive()) {
+            wait(100);
+        }
+        checkFailure();
+    }
+    
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException(prefix + " log stopped after " + durable + " durable records: " + failure, failure);
+        }
+    }
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>();
+        while (true) {
+            try {
+                byte[] first = pending.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) break;
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch);
+
+                for (byte[] record : batch) {
+                    write(record);
+                }
+                drainWriteBuffer();
+                channel.force(false);
+
+                synchronized (this) {
+                    durable += batch.size();
+                    batches++;
+                    notifyAll();
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (closed && pending.isEmpty()) break;
+            } catch (IOException e) {
+                System.err.println("Knowledge log write failed: " + e);
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                break;
+            }
+        }
+    }
+
+    private void write(byte[] record) throws IOException {
+        if (segmentBytes + HEADER_BYTES + record.length > SEGMENT_BYTES && segmentBytes > 0) {
+            drainWriteBuffer();
+            openSegment(nextSequence);
+        }
+        if (writeBuffer.remaining() < HEADER_BYTES + record.length) {
+            drainWriteBuffer();
+        }
+        crc.reset();
+        crc.update(record, 0, record.length);
+        if (HEADER_BYTES + record.length > writeBuffer.capacity()) {
+            ByteBuffer large = ByteBuffer.allocate(HEADER_BYTES + record.length);
+            large.putInt(record.length).putInt((int) crc.getValue()).put(record).flip();
+            while (large.hasRemaining()) channel.write(large);
+        } else {
+            writeBuffer.putInt(record.length).putInt((int) crc.getValue()).put(record);
+        }
+        segmentBytes += HEADER_BYTES + record.length;
+        nextSequence++;
+    }
+
+    private void drainWriteBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) channel.write(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    // Returns a view of the next record and advances data, or null at the end / a bad record
+    private ByteBuffer readRecord(ByteBuffer data, boolean verify) {
+        if (data.remaining() < HEADER_BYTES) return null;
+        int start = data.position();
+        int length = data.getInt(start);
+        int checksum = data.getInt(start + 4);
+        if (length < 0 || length > MAX_RECORD_BYTES || data.remaining() < HEADER_BYTES + length) return null;
+
+        ByteBuffer record = data.duplicate();
+        record.position(start + HEADER_BYTES).limit(start + HEADER_BYTES + length);
+        if (verify) {
+            CRC32 check = new CRC32();
+            check.update(record.duplicate());
+            if ((int) check.getValue() != checksum) return null;
+        }
+        data.position(start + HEADER_BYTES + length);
+        return record.slice();
+    }
+
+    /**
+     * Visits every durable record with sequence >= from, oldest first. Segments before the
+     * one containing from are never opened; records before it inside that segment are
+     * skipped by their length prefix alone.
+     */
+    public void replay(long from, RecordVisitor visitor) throws IOException {
+        NavigableMap<Long, Path> range;
+        synchronized (segments) {
+            Long floor = segments.floorKey(Math.max(0, from));
+            range = new TreeMap<>(floor == null ? segments : segments.tailMap(floor, true));
+        }
+        for (Map.Entry<Long, Path> segment : range.entrySet()) {
+            long sequence = segment.getKey();
+            try (FileChannel read = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                // Skip by reading headers only, so the skipped records are never loaded
+                long position = 0;
+                long size = read.size();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                while (sequence < from && size - position >= HEADER_BYTES) {
+                    header.clear();
+                    readFully(read, header, position);
+                    int length = header.getInt(0);
+                    if (length < 0 || size - position < HEADER_BYTES + length) break;
+                    position += HEADER_BYTES + length;
+                    sequence++;
+                }
+                ByteBuffer data = readFrom(read, position);
+                ByteBuffer record;
+                while ((record = readRecord(data, true)) != null) {
+                    visitor.visit(sequence++, record);
+                }
+            }
+        }
+    }
+
+    // Reads a segment from position to its end into a heap buffer, flipped for reading
+    private static ByteBuffer readFrom(FileChannel read, long position) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate((int) Math.max(0, read.size() - position));
+        readFully(read, data, position);
+        data.flip();
+        return data;
+    }
+
+    // Fills buffer from position on, stopping early only at end of file
+    private static void readFully(FileChannel read, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (read.read(buffer, position + buffer.position()) < 0) break;
+        }
+    }
+
+    /**
+     * Deletes whole segments whose records all precede sequence. The segment being written
+     * is never deleted. A segment that cannot be deleted stays listed and is retried on the
+     * next call.
+     */
+    public void deleteBefore(long sequence) throws IOException {
+        List<Path> doomed = new ArrayList<>();
+        synchronized (segments) {
+            Iterator<Map.Entry<Long, Path>> iterator = segments.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Path> segment = iterator.next();
+                Long next = segments.higherKey(segment.getKey());
+                if (next == null || next > sequence) break;
+                doomed.add(segment.getValue());
+                iterator.remove();
+            }
+        }
+        IOException failed = null;
+        for (Path file : doomed) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                synchronized (segments) {
+                    segments.put(firstSequenceOf(file), file);
+                }
+                if (failed == null) failed = e;
+            }
+        }
+        if (failed != null) throw failed;
+    }
+
+    private long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length() + 1, name.length() - 4));
+    }
+
+    /** Sequence number the next append() will return. */
+    public synchronized long getNextSequence() {
+        return submitted;
+    }
+
+    public synchronized long getPendingCount() {
+        return submitted - durable;
+    }
+
+    public synchronized long getBatchCount() {
+        return batches;
+    }
+
+    public int getSegmentCount() {
+        synchronized (segments) {
+            return segments.size();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Already reported by the writer; still release the file
+        }
+        synchronized (this) {
+            closed = true;
+        }
+        // No interrupt: interrupting a thread inside FileChannel I/O closes the channel
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (failure == null) channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+}
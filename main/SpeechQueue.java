@@ -0,0 +1,253 @@
+package com.starkindustries.jarvis.voice;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Speech output pipeline. Callers enqueue utterances and return immediately; a single
+ * speaker thread plays them back highest priority first. Emergency utterances interrupt
+ * whatever lower-priority utterance is playing, and a queued utterance is replaced by a
+ * newer one with the same coalesce key, so stale updates are never read out.
+ */
+public class SpeechQueue {
+    public enum Priority { LOW, NORMAL, HIGH, EMERGENCY }
+
+    public enum Outcome { SPOKEN, INTERRUPTED, COALESCED, DROPPED }
+
+    @FunctionalInterface
+    public interface Synthesizer {
+        // Plays text; should return early (and false) once the utterance is interrupted.
+        // The speaker thread is unparked when that happens, so waiting with park is enough
+        boolean speak(String text, Utterance utterance) throws InterruptedException;
+    }
+
+    public static class Utterance {
+        private final String text;
+        private final Priority priority;
+        private final String coalesceKey;
+        private final long sequence;
+        private final long enqueuedNanos;
+        private final CompletableFuture<Outcome> completion = new CompletableFuture<>();
+        private volatile boolean interrupted;
+
+        private Utterance(String text, Priority priority, String coalesceKey, long sequence) {
+            this.text = text;
+            this.priority = priority;
+            this.coalesceKey = coalesceKey;
+            this.sequence = sequence;
+            this.enqueuedNanos = System.nanoTime();
+        }
+
+        public String getText() { return text; }
+        public Priority getPriority() { return priority; }
+        public boolean isInterrupted() { return interrupted; }
+        public CompletableFuture<Outcome> getCompletion() { return completion; }
+    }
+
+    // Highest priority first, FIFO within a priority
+    private static final Comparator<Utterance> ORDER = (a, b) -> a.priority != b.priority
+        ? b.priority.compareTo(a.priority) : Long.compare(a.sequence, b.sequence);
+
+    private final int capacity;
+    private final Synthesizer synthesizer;
+    private final PriorityQueue<Utterance> queue;
+    private final Map<String, Utterance> queuedByKey = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Thread speaker;
+
+    private long nextSequence;
+    private Utterance current;
+    private volatile boolean running = true;
+
+    // Metrics
+    private long spoken, interrupted, coalesced, dropped;
+    private long totalQueueNanos;
+
+    public SpeechQueue(int capacity, Synthesizer synthesizer) {
+        this.capacity = capacity;
+        this.synthesizer = synthesizer;
+        this.queue = new PriorityQueue<>(capacity, ORDER);
+        this.speaker = new Thread(this::speakLoop, "JARVIS-Speech");
+        speaker.setDaemon(true);
+        speaker.start();
+    }
+
+    public CompletableFuture<Outcome> enqueue(String text, Priority priority) {
+        return enqueue(text, priority, text);
+    }
+
+    /**
+     * Queues text for playback and returns at once. A queued utterance with the same
+     * coalesceKey is replaced; pass null to never coalesce. When the queue is full the
+     * oldest lowest-priority entry is dropped if it ranks below the new one, otherwise
+     * the new utterance is dropped.
+     */
+    public CompletableFuture<Outcome> enqueue(String text, Priority priority, String coalesceKey) {
+        // Futures are completed outside the lock so their callbacks can enqueue again
+        List<Utterance> superseded = new ArrayList<>(1);
+        Utterance evicted = null;
+        Utterance utterance;
+        lock.lock();
+        try {
+            utterance = new Utterance(text, priority, coalesceKey, nextSequence++);
+            if (!running) {
+                dropped++;
+                utterance.completion.complete(Outcome.DROPPED);
+                return utterance.completion;
+            }
+
+            if (coalesceKey != null) {
+                Utterance stale = queuedByKey.remove(coalesceKey);
+                if (stale != null) {
+                    queue.remove(stale);
+                    coalesced++;
+                    superseded.add(stale);
+                }
+            }
+
+            if (queue.size() >= capacity) {
+                Utterance weakest = null;
+                for (Utterance queued : queue) {
+                    if (weakest == null || queued.priority.compareTo(weakest.priority) < 0
+                            || (queued.priority == weakest.priority && queued.sequence < weakest.sequence)) {
+                        weakest = queued;
+                    }
+                }
+                if (weakest.priority.compareTo(priority) >= 0) {
+                    dropped++;
+                    utterance.completion.complete(Outcome.DROPPED);
+                    return utterance.completion;
+                }
+                removeQueued(weakest);
+                dropped++;
+                evicted = weakest;
+            }
+
+            queue.add(utterance);
+            if (coalesceKey != null) {
+                queuedByKey.put(coalesceKey, utterance);
+            }
+
+            // Emergency speech cuts off anything less urgent that is already playing
+            if (priority == Priority.EMERGENCY && current != null && current.priority != Priority.EMERGENCY) {
+                current.interrupted = true;
+                LockSupport.unpark(speaker);
+            }
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Utterance stale : superseded) {
+            stale.completion.complete(Outcome.COALESCED);
+        }
+        if (evicted != null) {
+            evicted.completion.complete(Outcome.DROPPED);
+        }
+        return utterance.completion;
+    }
+
+    private void removeQueued(Utterance utterance) {
+        queue.remove(utterance);
+        if (utterance.coalesceKey != null) {
+            queuedByKey.remove(utterance.coalesceKey, utterance);
+        }
+    }
+
+    private void speakLoop() {
+        while (running) {
+            Utterance next;
+            lock.lock();
+            try {
+                while (running && queue.isEmpty()) {
+                    notEmpty.await();
+                }
+                if (!running) break;
+                next = queue.poll();
+                if (next.coalesceKey != null) {
+                    queuedByKey.remove(next.coalesceKey, next);
+                }
+                current = next;
+                totalQueueNanos += System.nanoTime() - next.enqueuedNanos;
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                lock.unlock();
+            }
+
+            Outcome outcome;
+            try {
+                outcome = synthesizer.speak(next.text, next) && !next.interrupted ? Outcome.SPOKEN : Outcome.INTERRUPTED;
+            } catch (InterruptedException e) {
+                outcome = Outcome.INTERRUPTED;
+                if (!running) {
+                    finish(next, outcome);
+                    break;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Speech synthesis failed: " + e.getMessage());
+                outcome = Outcome.DROPPED;
+            }
+            finish(next, outcome);
+        }
+    }
+
+    private void finish(Utterance utterance, Outcome outcome) {
+        lock.lock();
+        try {
+            current = null;
+            if (outcome == Outcome.SPOKEN) spoken++;
+            else if (outcome == Outcome.INTERRUPTED) interrupted++;
+            else dropped++;
+        } finally {
+            lock.unlock();
+        }
+        utterance.completion.complete(outcome);
+    }
+
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getStatus() {
+        lock.lock();
+        try {
+            long started = spoken + interrupted;
+            return String.format("Speech: %d queued, %d spoken, %d interrupted, %d coalesced, %d dropped, avg wait %.1fms",
+                queue.size(), spoken, interrupted, coalesced, dropped,
+                started > 0 ? totalQueueNanos / 1_000_000.0 / started : 0.0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stops the speaker, cutting off the current utterance and dropping everything queued. */
+    public void shutdown() {
+        List<Utterance> pending;
+        lock.lock();
+        try {
+            running = false;
+            if (current != null) {
+                current.interrupted = true;
+            }
+            pending = new ArrayList<>(queue);
+            dropped += pending.size();
+            queue.clear();
+            queuedByKey.clear();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        speaker.interrupt();
+        for (Utterance utterance : pending) {
+            utterance.completion.complete(Outcome.DROPPED);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.starkindustries.jarvis.voice;
+
+import javax.sound.sampled.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Stand-in voice for keyword templates. There is no TTS engine on board, so each letter of
+ * a keyword is rendered as a short voiced sound with its own formant pair; takes differ in
+ * pitch, speaking rate, loudness and background noise. Templates made this way recognize
+ * audio made the same way (WAV input through startFileCapture), not a human speaker: real
+ * recordings dropped next to them are what make the microphone path useful.
+ */
+public class SyntheticVoice {
+    public static final String TAKE_PREFIX = "synthetic";
+
+    /**
+     * Writes variants takes of every keyword as WAV files named for
+     * KeywordSpotter.enrollDirectory: status_synthetic1.wav, team-status_synthetic2.wav.
+     * Returns the files written.
+     */
+    public static List<Path> writeTakes(Collection<String> vocabulary, Path dir, int variants, long seed) throws IOException {
+        Files.createDirectories(dir);
+        Random random = new Random(seed);
+        List<Path> written = new ArrayList<>();
+        for (String keyword : vocabulary) {
+            for (int take = 1; take <= variants; take++) {
+                byte[] pcm = synthesizeWord(keyword.toLowerCase(), random);
+                Path file = dir.resolve(keyword.toLowerCase().replace(' ', '-') + "_" + TAKE_PREFIX + take + ".wav");
+                AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(pcm), AudioCapture.FORMAT, pcm.length / 2);
+                AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file.toFile());
+                written.add(file);
+            }
+        }
+        return written;
+    }
+
+    private static byte[] synthesizeWord(String word, Random random) {
+        double pitch = 100 + random.nextDouble() * 80;
+        double rate = 0.85 + random.nextDouble() * 0.3;
+        double loudness = 4000 + random.nextDouble() * 6000;
+        double noise = 20 + random.nextDouble() * 80;
+        int letterSamples = (int) (0.07 * 16000 * rate);
+        int pauseSamples = (int) (0.06 * 16000 * rate);
+        int edge = 800;
+
+        int total = 2 * edge;
+        for (char ch : word.toCharArray()) total += ch == ' ' ? pauseSamples : letterSamples;
+        byte[] pcm = new byte[total * 2];
+
+        int position = edge;
+        double phase = 0;
+        for (char ch : word.toCharArray()) {
+            if (ch == ' ') {
+                position += pauseSamples;
+                continue;
+            }
+            int letter = Character.isLetter(ch) ? ch - 'a' : 0;
+            double f1 = 300 + (letter % 6) * 110;   // letters spread over a 6 x 5 formant grid
+            double f2 = 900 + (letter / 6) * 350;
+            for (int i = 0; i < letterSamples; i++, position++) {
+                double envelope = Math.sin(Math.PI * i / letterSamples);
+                double value = 0;
+                for (int h = 1; h * pitch < 4000; h++) {
+                    double frequency = h * pitch;
+                    double gain = Math.exp(-Math.pow((frequency - f1) / 120, 2)) + 0.6 * Math.exp(-Math.pow((frequency - f2) / 180, 2));
+                    value += gain * Math.sin(h * phase);
+                }
+                phase += 2 * Math.PI * pitch / 16000;
+                writeSample(pcm, position, value * loudness * envelope);
+            }
+        }
+        for (int i = 0; i < total; i++) {
+            double value = (short) ((pcm[2 * i] & 0xFF) | (pcm[2 * i + 1] << 8)) + random.nextGaussian() * noise;
+            writeSample(pcm, i, value);
+        }
+        return pcm;
+    }
+
+    private static void writeSample(byte[] pcm, int index, double value) {
+        short sample = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        pcm[index * 2] = (byte) sample;
+        pcm[index * 2 + 1] = (byte) (sample >> 8);
+    }
+}
@@ -1,91 +1,177 @@
 package com.starkindustries.jarvis.voice;
 
 import javax.sound.sampled.*;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
 
 public class VoiceProcessor {
-    private boolean voiceRecognitionActive;
+    private volatile boolean voiceRecognitionActive;
     private boolean speechSynthesisActive;
     private AudioFormat audioFormat;
-    private BlockingQueue<String> commandQueue;
+    private MpscRingBuffer<String> commandQueue;
+    private SpeechQueue speechQueue;
+    private AudioCapture audioCapture;
+    private KeywordSpotter keywordSpotter;
+    private Collection<String> vocabulary;
+    
+    // Capture thread only: MFCC extraction reuses these across utterances
+    private final FeatureExtractor featureExtractor = new FeatureExtractor();
+    private float[] features;
+    private volatile long recognized, rejected;
+    
+    private static final int COMMAND_QUEUE_CAPACITY = 64;
+    private static final int SPEECH_QUEUE_CAPACITY = 32;
+    private static final Path TEMPLATE_DIR = Paths.get("voice", "templates");
+    private static final int SYNTHETIC_TAKES = 2;
     
     public VoiceProcessor() {
-        this.commandQueue = new LinkedBlockingQueue<>();
-        this.audioFormat = new AudioFormat(16000, 16, 1, true, false);
+        this(MpscRingBuffer.WaitStrategy.BLOCKING);
+    }
+    
+    public VoiceProcessor(MpscRingBuffer.WaitStrategy waitStrategy) {
+        // Voice input is real time: when the consumer falls behind, the newest commands are
+        // dropped (and counted) rather than stalling recognition
+        this.commandQueue = new MpscRingBuffer<>(COMMAND_QUEUE_CAPACITY,
+            MpscRingBuffer.OverflowPolicy.DROP_NEWEST, waitStrategy);
+        this.audioFormat = AudioCapture.FORMAT;
+        this.audioCapture = new AudioCapture(this::onSpeechSegment);
+        this.keywordSpotter = new KeywordSpotter();
+        this.speechQueue = new SpeechQueue(SPEECH_QUEUE_CAPACITY, this::playSpeech);
     }
     
     public void initializeVoiceSystems() {
         System.out.println("Initializing voice recognition systems...");
         this.voiceRecognitionActive = true;
         this.speechSynthesisActive = true;
-        startVoiceRecognition();
-    }
-    
-    private void startVoiceRecognition() {
-        Thread recognitionThread = new Thread(() -> {
-            while (voiceRecognitionActive) {
-                try {
-                    String simulatedCommand = simulateVoiceInput();
-                    if (simulatedCommand != null && !simulatedCommand.trim().isEmpty()) {
-                        commandQueue.put(simulatedCommand);
-                    }
-                    Thread.sleep(100); // Simulate processing delay
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+        loadKeywordTemplates();
+        startAudioCapture();
+    }
+    
+    // Restricts recognition to these command keywords; call before initializeVoiceSystems
+    public void setVocabulary(Collection<String> keywords) {
+        this.vocabulary = new ArrayList<>(keywords);
+    }
+    
+    public KeywordSpotter getKeywordSpotter() {
+        return keywordSpotter;
+    }
+    
+    private void loadKeywordTemplates() {
+        try {
+            Set<String> missing = keywordSpotter.enrollDirectory(TEMPLATE_DIR, vocabulary);
+            System.out.println("Keyword spotter: " + keywordSpotter.getTemplateCount() + " templates loaded from " + TEMPLATE_DIR);
+            if (!missing.isEmpty()) {
+                generateKeywordTemplates(missing);
             }
-        });
-        recognitionThread.setDaemon(true);
-        recognitionThread.start();
+        } catch (IOException e) {
+            System.err.println("Failed to load voice templates: " + e.getMessage());
+        }
     }
     
-    public void synthesizeSpeech(String text) {
-        if (!speechSynthesisActive) return;
-        
-        // In real implementation, this would use TTS like FreeTTS or cloud services
-        System.out.println("J.A.R.V.I.S.: \"" + text + "\"");
-        
-        // Simulate speech timing
+    // First run, or new commands: without a template a keyword can never be recognized, so
+    // synthesize stand-ins and say so. They are written to TEMPLATE_DIR and reused next time
+    private void generateKeywordTemplates(Set<String> missing) throws IOException {
+        List<Path> files = SyntheticVoice.writeTakes(missing, TEMPLATE_DIR, SYNTHETIC_TAKES, missing.hashCode());
+        for (Path file : files) {
+            try {
+                keywordSpotter.enroll(KeywordSpotter.keywordOf(file), file);
+            } catch (UnsupportedAudioFileException e) {
+                System.err.println("Skipping template " + file + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Generated synthetic voice templates for: " + String.join(", ", missing));
+        System.out.println("These match synthetic audio only. For spoken commands, record <keyword>[_n].wav files (16 kHz mono) into "
+            + TEMPLATE_DIR + " and delete the *_" + SyntheticVoice.TAKE_PREFIX + "*.wav ones.");
+    }
+    
+    private void startAudioCapture() {
         try {
-            Thread.sleep(Math.max(1000, text.length() * 50)); // Realistic speech timing
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            audioCapture.startMicrophone();
+            System.out.println("Microphone capture online: " + audioFormat);
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            System.out.println("No microphone available (" + e.getMessage() + "), voice input offline.");
         }
     }
     
-    public String getNextCommand() throws InterruptedException {
-        return commandQueue.poll(1, TimeUnit.SECONDS);
+    // Streams a WAV file through the audio front end in place of the microphone
+    public void startFileCapture(Path wavFile, boolean realTime) throws IOException, UnsupportedAudioFileException {
+        audioCapture.stop();
+        audioCapture.startFile(wavFile, realTime);
+    }
+    
+    // Called on the capture thread for every utterance the VAD detects. Recognition takes a
+    // few milliseconds, well inside the line's buffer, so it runs inline
+    private void onSpeechSegment(AudioCapture.SpeechSegment segment) {
+        try {
+            if (!voiceRecognitionActive) return;
+            long start = System.nanoTime();
+            features = featureExtractor.extract(segment, features);
+            int frames = FeatureExtractor.frameCount(segment.getSampleCount());
+            KeywordSpotter.Result result = keywordSpotter.recognize(features, frames, start);
+            
+            if (result.getKeyword() != null) {
+                recognized++;
+                commandQueue.offer(result.getKeyword());
+            } else {
+                rejected++;
+                System.out.printf("Unrecognized speech at %.0fms (%.0fms)%n", segment.getStartMillis(), segment.getDurationMillis());
+            }
+        } finally {
+            segment.release();
+        }
+    }
+    
+    public CompletableFuture<SpeechQueue.Outcome> synthesizeSpeech(String text) {
+        return synthesizeSpeech(text, SpeechQueue.Priority.NORMAL);
     }
     
-    private String simulateVoiceInput() {
-        // Simulate various voice commands for testing
-        String[] testCommands = {
-            "status",
-            "analyze situation", 
-            "suit up",
-            "run simulation",
-            "team status",
-            "make coffee",
-            "emergency protocol",
-            "shutdown"
-        };
+    // Queues the utterance and returns immediately; the future completes once it has been
+    // spoken, interrupted, coalesced or dropped
+    public CompletableFuture<SpeechQueue.Outcome> synthesizeSpeech(String text, SpeechQueue.Priority priority) {
+        if (!speechSynthesisActive) {
+            return CompletableFuture.completedFuture(SpeechQueue.Outcome.DROPPED);
+        }
+        return speechQueue.enqueue(text, priority);
+    }
+    
+    // Runs on the speech thread
+    private boolean playSpeech(String text, SpeechQueue.Utterance utterance) {
+        // In real implementation, this would use TTS like FreeTTS or cloud services
+        System.out.println("J.A.R.V.I.S.: \"" + text + "\"");
         
-        // Occasionally return a command (simulating real voice input)
-        if (Math.random() < 0.3) { // 30% chance of receiving a command
-            return testCommands[(int) (Math.random() * testCommands.length)];
+        // Simulate speech timing, stopping early if a more urgent utterance preempts this one
+        long deadline = System.nanoTime() + Math.max(1000, text.length() * 50) * 1_000_000L;
+        long remaining;
+        while (!utterance.isInterrupted() && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) return false;
         }
-        return null;
+        return !utterance.isInterrupted();
+    }
+    
+    public String getNextCommand() throws InterruptedException {
+        // Wakes as soon as a command is published instead of on a polling interval
+        return commandQueue.poll(1, TimeUnit.SECONDS);
     }
     
     public String getStatus() {
         return "Voice Systems: " + (voiceRecognitionActive ? "ACTIVE" : "INACTIVE") + 
-               ", Queue: " + commandQueue.size() + " pending commands";
+               ", Recognized: " + recognized + " (" + rejected + " rejected)" +
+               ", Queue: " + commandQueue.size() + " pending commands" +
+               String.format(" (%d dropped, latency avg %.2fms max %.2fms), ", commandQueue.getDroppedCount(),
+                   commandQueue.getAverageLatencyMillis(), commandQueue.getMaxLatencyMillis()) +
+               speechQueue.getStatus() + ", " + audioCapture.getStatus();
     }
     
     public void shutdown() {
         voiceRecognitionActive = false;
         speechSynthesisActive = false;
-        commandQueue.clear();
+        // clear() is consumer-only and this runs on the caller's thread; close() is safe from any
+        commandQueue.close();
+        speechQueue.shutdown();
+        audioCapture.stop();
     }
 }
\ No newline at end of file
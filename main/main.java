@@ -8,6 +8,10 @@ import com.starkindustries.jarvis.security.*;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class JARVIS implements JARVISSystem {
     private static JARVIS instance;
@@ -28,6 +32,8 @@ public class JARVIS implements JARVISSystem {
     // Tony's preferences
     private UserProfile tonyStark;
     
+    private static final long SHUTDOWN_SPEECH_TIMEOUT_MILLIS = 5000; // per announcement
+    
     private JARVIS() {
         // Private constructor for singleton
         initializeComponents();
@@ -60,6 +66,7 @@ public class JARVIS implements JARVISSystem {
         // Component initialization sequence
         security.authenticateUser(tonyStark);
         brain.initializeNeuralNet();
+        voice.setVocabulary(brain.getCommandKeywords());
         voice.initializeVoiceSystems();
         suit.connectToAllSuits();
         monitor.startSystemMonitoring();
@@ -143,7 +150,8 @@ public class JARVIS implements JARVISSystem {
     @Override
     public void emergencyProtocol() {
         this.emergencyMode = true;
-        speak("Emergency protocol activated! All non-essential systems diverted to critical functions.");
+        speak("Emergency protocol activated! All non-essential systems diverted to critical functions.",
+              SpeechQueue.Priority.EMERGENCY);
         security.lockdownProtocol();
         suit.emergencyDeployment();
         monitor.priorityScan();
@@ -151,18 +159,32 @@ public class JARVIS implements JARVISSystem {
     
     @Override
     public void shutdownSystem() {
-        speak("Initiating shutdown sequence...");
+        awaitSpeech(speak("Initiating shutdown sequence..."));
         this.isActive = false;
         this.status = SystemStatus.SHUTTING_DOWN;
         
-        // Graceful shutdown of all components
-        voice.shutdown();
+        // Graceful shutdown of all components; voice goes last so the farewell is still heard
         monitor.shutdown();
         suit.disconnect();
         brain.saveKnowledgeBase();
+        brain.shutdown();
+        awaitSpeech(speak("J.A.R.V.I.S. shutdown complete. Goodbye, Sir."));
+        voice.shutdown();
         
         this.status = SystemStatus.OFFLINE;
-        speak("J.A.R.V.I.S. shutdown complete. Goodbye, Sir.");
+    }
+    
+    // Speech is asynchronous: wait (bounded) for an announcement before tearing anything down
+    private void awaitSpeech(CompletableFuture<SpeechQueue.Outcome> spoken) {
+        try {
+            spoken.get(SHUTDOWN_SPEECH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log("Speech still pending after " + SHUTDOWN_SPEECH_TIMEOUT_MILLIS + "ms, continuing shutdown");
+        } catch (ExecutionException e) {
+            log("Speech failed during shutdown: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
     
     // Additional Tony-specific methods
@@ -181,9 +203,16 @@ public class JARVIS implements JARVISSystem {
         brain.runTacticalSimulation(scenario);
     }
     
-    private void speak(String message) {
-        voice.synthesizeSpeech(message);
+    private CompletableFuture<SpeechQueue.Outcome> speak(String message) {
+        return speak(message, emergencyMode ? SpeechQueue.Priority.HIGH : SpeechQueue.Priority.NORMAL);
+    }
+    
+    // Non-blocking: speech is played back on the voice system's output thread; the future
+    // completes once it has been spoken, interrupted, coalesced or dropped
+    private CompletableFuture<SpeechQueue.Outcome> speak(String message, SpeechQueue.Priority priority) {
+        CompletableFuture<SpeechQueue.Outcome> spoken = voice.synthesizeSpeech(message, priority);
         log("JARVIS: " + message);
+        return spoken;
     }
     
     private void log(String entry) {